@@ -0,0 +1,57 @@
+package networkCapacityPlanning;
+
+import edu.princeton.cs.algs4.DijkstraSP;
+import edu.princeton.cs.algs4.EdgeWeightedDigraph;
+
+/**
+ * Reference engine: runs algs4 DijkstraSP on the EdgeWeightedDigraph view of
+ * the graph and converts the result into the canonical ShortestPathTree. It
+ * is slow and allocates heavily, and is only meant to cross-check the other
+ * engines.
+ *
+ * @author LiP
+ *
+ */
+public class Algs4Dijkstra implements ShortestPathEngine {
+
+	// algs4 view of the last graph seen, rebuilt when the graph changes
+	private CSRGraph viewOf;
+	private EdgeWeightedDigraph view;
+
+	@Override
+	public void run(CSRGraph graph, int s, ShortestPathTree tree) {
+		if (graph != viewOf) {
+			view = graph.toEdgeWeightedDigraph();
+			viewOf = graph;
+		}
+		DijkstraSP sp = new DijkstraSP(view, s);
+		tree.reset(s);
+
+		int V = graph.V();
+		int[] dist = tree.dist;
+		for (int v = 0; v < V; v++) {
+			if (sp.hasPathTo(v)) {
+				dist[v] = (int) sp.distTo(v);
+			}
+		}
+
+		// canonical parent: smallest v with dist[v] + weight(v->w) == dist[w]
+		int[] parent = tree.parent;
+		int[] parentEdge = tree.parentEdge;
+		for (int v = 0; v < V; v++) {
+			if (dist[v] == ShortestPathTree.UNREACHABLE) {
+				continue;
+			}
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int w = graph.target(e);
+				if (w != s && parent[w] == -1
+						&& dist[v] + graph.weight(e) == dist[w]) {
+					parent[w] = v;
+					parentEdge[w] = e;
+				}
+			}
+		}
+
+		tree.settleByDistance();
+	}
+}
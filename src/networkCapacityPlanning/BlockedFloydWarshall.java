@@ -0,0 +1,296 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs shortest paths for dense graphs: Floyd-Warshall tiled into
+ * blockSize x blockSize blocks over a flat int[] distance matrix, so that
+ * every block update works on a few cache resident rows. For every pivot
+ * block the diagonal tile is updated first, then the tiles in its row and
+ * column, then all remaining tiles; the tiles of the last two phases are
+ * independent and are spread over a ForkJoinPool.
+ *
+ * After the distances, the canonical predecessor of every (s, t) pair is
+ * recorded (see ShortestPathTree), so the trees, and therefore the flow,
+ * are the same as the single source engines produce.
+ *
+ * @author LiP
+ *
+ */
+public class BlockedFloydWarshall {
+
+	public static final int DEFAULT_BLOCK_SIZE = 64;
+
+	// half of Integer.MAX_VALUE, so INF + INF does not overflow
+	private static final int INF = Integer.MAX_VALUE / 2;
+
+	private final CSRGraph graph;
+	private final int n;
+	private final int blockSize;
+	// dist[s * n + t] and pred[s * n + t], INF and -1 when t is unreachable
+	private final int[] dist;
+	private final int[] pred;
+
+	/**
+	 * solve all pairs shortest paths of a graph
+	 *
+	 * @param graph
+	 *            input graph, positive weights, path costs below 2^30
+	 * @param blockSize
+	 *            tile size
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 */
+	public BlockedFloydWarshall(CSRGraph graph, int blockSize, int parallelism) {
+		if (blockSize <= 0 || parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"block size and parallelism must be positive numbers");
+		}
+		this.graph = graph;
+		this.n = graph.V();
+		this.blockSize = blockSize;
+		this.dist = new int[n * n];
+		this.pred = new int[n * n];
+
+		Arrays.fill(dist, INF);
+		for (int v = 0; v < n; v++) {
+			dist[v * n + v] = 0;
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				dist[v * n + graph.target(e)] = graph.weight(e);
+			}
+		}
+
+		ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism)
+				: null;
+		try {
+			solve(pool);
+			findPredecessors(pool);
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/*
+	 * getters
+	 */
+	public int V() {
+		return n;
+	}
+
+	public boolean hasPath(int s, int t) {
+		return dist[s * n + t] != INF;
+	}
+
+	public int distTo(int s, int t) {
+		return dist[s * n + t] == INF ? ShortestPathTree.UNREACHABLE : dist[s
+				* n + t];
+	}
+
+	/**
+	 * @param s
+	 *            source vertex
+	 * @param t
+	 *            target vertex
+	 * @return previous vertex on the shortest s->t path, or -1 if t is s or
+	 *         unreachable
+	 */
+	public int predecessor(int s, int t) {
+		return pred[s * n + t];
+	}
+
+	/**
+	 * copy the shortest path tree of source s into a ShortestPathTree, so that
+	 * flow can be rebuilt with ShortestPathTree.addSubtreeFlow
+	 *
+	 * @param s
+	 *            source vertex
+	 * @param tree
+	 *            output, overwritten
+	 */
+	public void fillTree(int s, ShortestPathTree tree) {
+		tree.reset(s);
+		int row = s * n;
+		for (int t = 0; t < n; t++) {
+			if (t != s && dist[row + t] != INF) {
+				tree.dist[t] = dist[row + t];
+				tree.parent[t] = pred[row + t];
+				tree.parentEdge[t] = graph.findEdge(pred[row + t], t);
+			}
+		}
+		tree.settleByDistance();
+	}
+
+	/*
+	 * three phase blocked Floyd-Warshall
+	 */
+	private void solve(ForkJoinPool pool) {
+		int blocks = (n + blockSize - 1) / blockSize;
+		int[] rows = new int[2 * blocks];
+		int[] cols = new int[2 * blocks];
+		int[] innerRows = new int[blocks * blocks];
+		int[] innerCols = new int[blocks * blocks];
+
+		for (int kb = 0; kb < blocks; kb++) {
+			// phase 1: the pivot tile
+			updateTile(kb, kb, kb);
+
+			// phase 2: tiles in the pivot row and column
+			int count = 0;
+			for (int b = 0; b < blocks; b++) {
+				if (b != kb) {
+					rows[count] = kb;
+					cols[count++] = b;
+					rows[count] = b;
+					cols[count++] = kb;
+				}
+			}
+			runTiles(pool, rows, cols, count, kb);
+
+			// phase 3: all other tiles
+			count = 0;
+			for (int ib = 0; ib < blocks; ib++) {
+				for (int jb = 0; jb < blocks; jb++) {
+					if (ib != kb && jb != kb) {
+						innerRows[count] = ib;
+						innerCols[count++] = jb;
+					}
+				}
+			}
+			runTiles(pool, innerRows, innerCols, count, kb);
+		}
+	}
+
+	private void runTiles(ForkJoinPool pool, int[] rows, int[] cols,
+			int count, int kb) {
+		if (pool == null) {
+			for (int i = 0; i < count; i++) {
+				updateTile(rows[i], cols[i], kb);
+			}
+		} else {
+			pool.invoke(new TileTask(rows, cols, 0, count, kb));
+		}
+	}
+
+	/*
+	 * relax tile (ib, jb) through the vertices of pivot block kb; the inner
+	 * loop is a plain min over two contiguous rows, which the JIT vectorizes
+	 */
+	private void updateTile(int ib, int jb, int kb) {
+		int iEnd = Math.min(n, (ib + 1) * blockSize);
+		int jStart = jb * blockSize;
+		int jEnd = Math.min(n, jStart + blockSize);
+		int kEnd = Math.min(n, (kb + 1) * blockSize);
+
+		for (int k = kb * blockSize; k < kEnd; k++) {
+			int kRow = k * n;
+			for (int i = ib * blockSize; i < iEnd; i++) {
+				int iRow = i * n;
+				int dik = dist[iRow + k];
+				if (dik == INF) {
+					continue;
+				}
+				for (int j = jStart; j < jEnd; j++) {
+					dist[iRow + j] = Math.min(dist[iRow + j], dik
+							+ dist[kRow + j]);
+				}
+			}
+		}
+	}
+
+	/*
+	 * canonical predecessor: the smallest v with dist(s, v) + weight(v->t) ==
+	 * dist(s, t); the weights are read from a transposed copy so the scan over
+	 * v runs along contiguous rows
+	 */
+	private void findPredecessors(ForkJoinPool pool) {
+		int[] weightTo = new int[n * n];
+		Arrays.fill(weightTo, INF);
+		for (int v = 0; v < n; v++) {
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				weightTo[graph.target(e) * n + v] = graph.weight(e);
+			}
+		}
+
+		if (pool == null) {
+			findPredecessors(weightTo, 0, n);
+		} else {
+			pool.invoke(new PredecessorTask(weightTo, 0, n));
+		}
+	}
+
+	private void findPredecessors(int[] weightTo, int from, int to) {
+		for (int s = from; s < to; s++) {
+			int row = s * n;
+			for (int t = 0; t < n; t++) {
+				pred[row + t] = -1;
+				int target = dist[row + t];
+				if (t == s || target == INF) {
+					continue;
+				}
+				int tRow = t * n;
+				for (int v = 0; v < n; v++) {
+					if (dist[row + v] + weightTo[tRow + v] == target) {
+						pred[row + t] = v;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class TileTask extends RecursiveAction {
+		private final int[] rows;
+		private final int[] cols;
+		private final int lo;
+		private final int hi;
+		private final int kb;
+
+		TileTask(int[] rows, int[] cols, int lo, int hi, int kb) {
+			this.rows = rows;
+			this.cols = cols;
+			this.lo = lo;
+			this.hi = hi;
+			this.kb = kb;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new TileTask(rows, cols, lo, mid, kb), new TileTask(
+						rows, cols, mid, hi, kb));
+			} else if (hi > lo) {
+				updateTile(rows[lo], cols[lo], kb);
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class PredecessorTask extends RecursiveAction {
+		private final int[] weightTo;
+		private final int lo;
+		private final int hi;
+
+		PredecessorTask(int[] weightTo, int lo, int hi) {
+			this.weightTo = weightTo;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > 8) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new PredecessorTask(weightTo, lo, mid),
+						new PredecessorTask(weightTo, mid, hi));
+			} else {
+				findPredecessors(weightTo, lo, hi);
+			}
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra single source shortest path on a CSRGraph with an indexed binary
+ * heap over primitive arrays. Edge weights must be positive. An instance holds
+ * its own heap, so it can be reused for every source but must not be shared
+ * between threads.
+ *
+ * @author LiP
+ *
+ */
+public class CSRDijkstra implements ShortestPathEngine {
+
+	private static final int NOT_VISITED = -1;
+	private static final int SETTLED = -2;
+
+	// heap[i] is the vertex at heap position i
+	private final int[] heap;
+	// position of a vertex in the heap, or NOT_VISITED / SETTLED
+	private final int[] position;
+	private int heapSize;
+
+	public CSRDijkstra(int V) {
+		heap = new int[V];
+		position = new int[V];
+	}
+
+	@Override
+	public void run(CSRGraph graph, int s, ShortestPathTree tree) {
+		if (graph.V() != heap.length || tree.V() != heap.length) {
+			throw new IllegalArgumentException(
+					"graph and tree must have the size this instance was created for");
+		}
+		tree.reset(s);
+		Arrays.fill(position, NOT_VISITED);
+		heapSize = 0;
+
+		int[] dist = tree.dist;
+		int[] parent = tree.parent;
+		int[] parentEdge = tree.parentEdge;
+		insert(s, dist);
+
+		while (heapSize > 0) {
+			int v = deleteMin(dist);
+			tree.settle(v);
+
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int w = graph.target(e);
+				if (position[w] == SETTLED) {
+					continue;
+				}
+				int candidate = dist[v] + graph.weight(e);
+				if (candidate < dist[w]) {
+					dist[w] = candidate;
+					parent[w] = v;
+					parentEdge[w] = e;
+					if (position[w] == NOT_VISITED) {
+						insert(w, dist);
+					} else {
+						siftUp(position[w], dist);
+					}
+				} else if (candidate == dist[w] && v < parent[w]) {
+					// canonical tie break, see ShortestPathTree
+					parent[w] = v;
+					parentEdge[w] = e;
+				}
+			}
+		}
+	}
+
+	/*
+	 * heap helpers
+	 */
+	private void insert(int v, int[] dist) {
+		heap[heapSize] = v;
+		position[v] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1, dist);
+	}
+
+	private int deleteMin(int[] dist) {
+		int min = heap[0];
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			position[heap[0]] = 0;
+			siftDown(0, dist);
+		}
+		position[min] = SETTLED;
+		return min;
+	}
+
+	private void siftUp(int i, int[] dist) {
+		int v = heap[i];
+		while (i > 0) {
+			int p = (i - 1) >>> 1;
+			if (dist[heap[p]] <= dist[v]) {
+				break;
+			}
+			heap[i] = heap[p];
+			position[heap[i]] = i;
+			i = p;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+	private void siftDown(int i, int[] dist) {
+		int v = heap[i];
+		while (true) {
+			int c = 2 * i + 1;
+			if (c >= heapSize) {
+				break;
+			}
+			if (c + 1 < heapSize && dist[heap[c + 1]] < dist[heap[c]]) {
+				c++;
+			}
+			if (dist[v] <= dist[heap[c]]) {
+				break;
+			}
+			heap[i] = heap[c];
+			position[heap[i]] = i;
+			i = c;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+}
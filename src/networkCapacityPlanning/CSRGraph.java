@@ -0,0 +1,265 @@
+package networkCapacityPlanning;
+
+import edu.princeton.cs.algs4.DirectedEdge;
+import edu.princeton.cs.algs4.EdgeWeightedDigraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ * Directed graph with integer edge weights stored in compressed sparse row
+ * form. The out-edges of vertex v occupy the slots [firstEdge(v),
+ * lastEdge(v)) of the target and weight arrays, sorted by target vertex.
+ *
+ * Only primitive arrays are kept, so a graph with E edges costs 2E + V + 1
+ * ints instead of E DirectedEdge objects plus their bag nodes.
+ *
+ * @author LiP
+ *
+ */
+public class CSRGraph {
+
+	private static final String NEWLINE = System.getProperty("line.separator");
+
+	private final int V;
+	// out-edges of v are stored in [rowStart[v], rowStart[v + 1])
+	private final int[] rowStart;
+	private final int[] target;
+	private final int[] weight;
+	private int maxWeight;
+	// in-edges, built on demand: in-edges of v are [inStart[v], inStart[v + 1])
+	// sorted by source, inSlot is the slot of the same edge in target/weight
+	private int[] inStart;
+	private int[] inSource;
+	private int[] inSlot;
+
+	private CSRGraph(int V, int[] rowStart, int[] target, int[] weight) {
+		this.V = V;
+		this.rowStart = rowStart;
+		this.target = target;
+		this.weight = weight;
+		for (int w : weight) {
+			maxWeight = Math.max(maxWeight, w);
+		}
+	}
+
+	/**
+	 * build a graph from an adjacency matrix, every non-zero off-diagonal cell
+	 * (i, j) becomes an edge i->j with weight matrix[i][j]; self loops and
+	 * zero cells are dropped
+	 *
+	 * @param matrix
+	 *            square adjacency matrix
+	 * @return graph in compressed sparse row form
+	 */
+	public static CSRGraph fromMatrix(int[][] matrix) {
+		int n = matrix.length;
+		int[] rowStart = new int[n + 1];
+
+		// first pass counts the edges so the arrays are allocated exactly once
+		for (int i = 0; i < n; i++) {
+			int count = 0;
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (i != j && matrix[i][j] != 0) {
+					count++;
+				}
+			}
+			rowStart[i + 1] = rowStart[i] + count;
+		}
+
+		int[] target = new int[rowStart[n]];
+		int[] weight = new int[rowStart[n]];
+		for (int i = 0; i < n; i++) {
+			int e = rowStart[i];
+			for (int j = 0; j < matrix[i].length; j++) {
+				if (i != j && matrix[i][j] != 0) {
+					target[e] = j;
+					weight[e] = matrix[i][j];
+					e++;
+				}
+			}
+		}
+		return new CSRGraph(n, rowStart, target, weight);
+	}
+
+	/*
+	 * getters
+	 */
+	public int V() {
+		return V;
+	}
+
+	public int E() {
+		return target.length;
+	}
+
+	public int firstEdge(int v) {
+		return rowStart[v];
+	}
+
+	public int lastEdge(int v) {
+		return rowStart[v + 1];
+	}
+
+	public int outdegree(int v) {
+		return rowStart[v + 1] - rowStart[v];
+	}
+
+	public int target(int e) {
+		return target[e];
+	}
+
+	public int weight(int e) {
+		return weight[e];
+	}
+
+	public int maxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * change the weight of an existing edge
+	 *
+	 * @param e
+	 *            slot of the edge
+	 * @param w
+	 *            new positive weight
+	 */
+	public void setWeight(int e, int w) {
+		if (w <= 0) {
+			throw new IllegalArgumentException("weight must be a positive number");
+		}
+		weight[e] = w;
+		maxWeight = Math.max(maxWeight, w);
+	}
+
+	/**
+	 * build the in-edge index used by firstInEdge(), inSource() and inSlot();
+	 * does nothing if it already exists
+	 */
+	public synchronized void buildInEdges() {
+		if (inStart != null) {
+			return;
+		}
+		int[] start = new int[V + 1];
+		for (int e = 0; e < target.length; e++) {
+			start[target[e] + 1]++;
+		}
+		for (int v = 0; v < V; v++) {
+			start[v + 1] += start[v];
+		}
+		int[] next = new int[V];
+		System.arraycopy(start, 0, next, 0, V);
+		int[] source = new int[target.length];
+		int[] slot = new int[target.length];
+		// rows are visited by increasing tail, so every in-list ends up sorted
+		for (int v = 0; v < V; v++) {
+			for (int e = rowStart[v]; e < rowStart[v + 1]; e++) {
+				int i = next[target[e]]++;
+				source[i] = v;
+				slot[i] = e;
+			}
+		}
+		inSource = source;
+		inSlot = slot;
+		inStart = start;
+	}
+
+	/*
+	 * in-edge getters, buildInEdges() must have been called
+	 */
+	public int firstInEdge(int v) {
+		return inStart[v];
+	}
+
+	public int lastInEdge(int v) {
+		return inStart[v + 1];
+	}
+
+	public int inSource(int i) {
+		return inSource[i];
+	}
+
+	public int inSlot(int i) {
+		return inSlot[i];
+	}
+
+	/**
+	 * find the slot of edge from->to
+	 *
+	 * @param from
+	 *            tail vertex
+	 * @param to
+	 *            head vertex
+	 * @return slot of the edge, or -1 if the graph does not contain it
+	 */
+	public int findEdge(int from, int to) {
+		int lo = rowStart[from];
+		int hi = rowStart[from + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (target[mid] < to) {
+				lo = mid + 1;
+			} else if (target[mid] > to) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * adapter to algs4, only to be used where an algs4 algorithm is needed,
+	 * since it allocates one DirectedEdge per edge
+	 *
+	 * @return equivalent EdgeWeightedDigraph
+	 */
+	public EdgeWeightedDigraph toEdgeWeightedDigraph() {
+		EdgeWeightedDigraph output = new EdgeWeightedDigraph(V);
+		for (int v = 0; v < V; v++) {
+			for (int e = rowStart[v]; e < rowStart[v + 1]; e++) {
+				output.addEdge(new DirectedEdge(v, target[e], weight[e]));
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * adapter to JUNG for visualization, edges are labeled "from->to"
+	 *
+	 * @return equivalent DirectedSparseGraph
+	 */
+	public DirectedSparseGraph<Integer, String> toJungGraph() {
+		DirectedSparseGraph<Integer, String> output = new DirectedSparseGraph<Integer, String>();
+		for (int v = 0; v < V; v++) {
+			output.addVertex((Integer) v);
+		}
+		for (int v = 0; v < V; v++) {
+			for (int e = rowStart[v]; e < rowStart[v + 1]; e++) {
+				output.addEdge(v + "->" + target[e], v, target[e],
+						EdgeType.DIRECTED);
+			}
+		}
+		return output;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString() same layout as EdgeWeightedDigraph
+	 */
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		s.append(V + " " + E() + NEWLINE);
+		for (int v = 0; v < V; v++) {
+			s.append(v + ": ");
+			for (int e = rowStart[v]; e < rowStart[v + 1]; e++) {
+				s.append(v + "->" + target[e] + " "
+						+ String.format("%5.2f", (double) weight[e]) + "  ");
+			}
+			s.append(NEWLINE);
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,116 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra single source shortest path with Dial's bucket queue, for graphs
+ * whose weights are small positive integers. With C the largest edge weight,
+ * all tentative distances in the queue lie in [d, d + C] for the current
+ * distance d, so C + 1 circular buckets replace the heap and every queue
+ * operation is O(1); a run costs O(E + V + maximum distance).
+ *
+ * Buckets are doubly linked lists threaded through primitive arrays. An
+ * instance must not be shared between threads.
+ *
+ * @author LiP
+ *
+ */
+public class DialDijkstra implements ShortestPathEngine {
+
+	private static final int NONE = -1;
+
+	private final boolean[] settled;
+	// bucket list links, indexed by vertex
+	private final int[] next;
+	private final int[] prev;
+	// first vertex of every bucket
+	private int[] bucketHead = new int[0];
+
+	public DialDijkstra(int V) {
+		settled = new boolean[V];
+		next = new int[V];
+		prev = new int[V];
+	}
+
+	@Override
+	public void run(CSRGraph graph, int s, ShortestPathTree tree) {
+		if (graph.V() != settled.length || tree.V() != settled.length) {
+			throw new IllegalArgumentException(
+					"graph and tree must have the size this instance was created for");
+		}
+		int buckets = graph.maxWeight() + 1;
+		if (bucketHead.length < buckets) {
+			bucketHead = new int[buckets];
+		}
+		Arrays.fill(bucketHead, 0, buckets, NONE);
+		Arrays.fill(settled, false);
+		tree.reset(s);
+
+		int[] dist = tree.dist;
+		int[] parent = tree.parent;
+		int[] parentEdge = tree.parentEdge;
+
+		link(s, 0);
+		int queued = 1;
+		int d = 0;
+		while (queued > 0) {
+			int b = d % buckets;
+			int v = bucketHead[b];
+			if (v == NONE) {
+				d++;
+				continue;
+			}
+			unlink(v, b);
+			queued--;
+			settled[v] = true;
+			tree.settle(v);
+
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int w = graph.target(e);
+				if (settled[w]) {
+					continue;
+				}
+				int candidate = d + graph.weight(e);
+				if (candidate < dist[w]) {
+					if (dist[w] == ShortestPathTree.UNREACHABLE) {
+						queued++;
+					} else {
+						unlink(w, dist[w] % buckets);
+					}
+					dist[w] = candidate;
+					parent[w] = v;
+					parentEdge[w] = e;
+					link(w, candidate % buckets);
+				} else if (candidate == dist[w] && v < parent[w]) {
+					// canonical tie break, see ShortestPathTree
+					parent[w] = v;
+					parentEdge[w] = e;
+				}
+			}
+		}
+	}
+
+	/*
+	 * bucket list helpers
+	 */
+	private void link(int v, int b) {
+		int head = bucketHead[b];
+		next[v] = head;
+		prev[v] = NONE;
+		if (head != NONE) {
+			prev[head] = v;
+		}
+		bucketHead[b] = v;
+	}
+
+	private void unlink(int v, int b) {
+		if (prev[v] == NONE) {
+			bucketHead[b] = next[v];
+		} else {
+			next[prev[v]] = next[v];
+		}
+		if (next[v] != NONE) {
+			prev[next[v]] = prev[v];
+		}
+	}
+}
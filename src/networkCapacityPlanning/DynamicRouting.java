@@ -0,0 +1,420 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+
+/**
+ * Repairs one shortest path tree after the weight of a single edge u->v
+ * changed, Ramalingam-Reps style: only the vertices whose distance can change
+ * are touched.
+ *
+ * An increase matters only if u->v is a tree edge; then the subtree below v
+ * is cut off, every vertex in it gets the best distance offered by vertices
+ * outside of it, and Dijkstra restricted to the subtree settles the rest. A
+ * decrease matters only if it gives v a distance at most its current one;
+ * then Dijkstra runs from v over the vertices whose distance drops. In both
+ * cases the canonical parents (see ShortestPathTree) of the touched vertices
+ * and of their neighbors are recomputed, so the repaired tree is exactly the
+ * tree a full run would produce.
+ *
+ * The tree is worked on in a private copy loaded from a RoutingPlan. Weights
+ * come from the graph, unless overridden with override(), which lets callers
+ * evaluate a change without modifying the shared graph. An override weight of
+ * ShortestPathTree.UNREACHABLE removes the edge. An instance must not be
+ * shared between threads.
+ *
+ * @author LiP
+ *
+ */
+public class DynamicRouting {
+
+	private static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+	private static final int NOT_VISITED = -1;
+	private static final int SETTLED = -2;
+	private static final int MAX_OVERRIDES = 4;
+
+	private final CSRGraph graph;
+	private final int n;
+
+	// working copy of the tree
+	private int source;
+	final int[] dist;
+	final int[] parent;
+
+	// vertices touched by the current repair, marked with the current stamp
+	private final int[] touched;
+	private int touchedCount;
+	private final int[] mark;
+	private int stamp;
+	// scratch stack for the subtree walk
+	private final int[] stack;
+
+	// indexed binary heap keyed by dist
+	private final int[] heap;
+	private final int[] position;
+	private int heapSize;
+
+	private final int[] overrideFrom = new int[MAX_OVERRIDES];
+	private final int[] overrideTo = new int[MAX_OVERRIDES];
+	private final int[] overrideWeight = new int[MAX_OVERRIDES];
+	private int overrides;
+
+	public DynamicRouting(CSRGraph graph) {
+		graph.buildInEdges();
+		this.graph = graph;
+		this.n = graph.V();
+		dist = new int[n];
+		parent = new int[n];
+		touched = new int[n];
+		mark = new int[n];
+		stack = new int[n];
+		heap = new int[n];
+		position = new int[n];
+		Arrays.fill(position, NOT_VISITED);
+	}
+
+	/**
+	 * copy the tree of source s out of a plan
+	 *
+	 * @param plan
+	 *            routing plan over the same graph
+	 * @param s
+	 *            source vertex
+	 */
+	public void load(RoutingPlan plan, int s) {
+		System.arraycopy(plan.dist, s * n, dist, 0, n);
+		System.arraycopy(plan.parent, s * n, parent, 0, n);
+		source = s;
+	}
+
+	public int source() {
+		return source;
+	}
+
+	public int distTo(int v) {
+		return dist[v];
+	}
+
+	/*
+	 * vertices touched by the last update(): the cut off subtree for an
+	 * increase, the improved vertices for a decrease
+	 */
+	int touchedCount() {
+		return touchedCount;
+	}
+
+	int touched(int i) {
+		return touched[i];
+	}
+
+	boolean isTouched(int v) {
+		return mark[v] == stamp;
+	}
+
+	/*
+	 * weight overrides
+	 */
+	public void clearOverrides() {
+		overrides = 0;
+	}
+
+	public void override(int u, int v, int weight) {
+		if (overrides == MAX_OVERRIDES) {
+			throw new IllegalArgumentException("too many weight overrides");
+		}
+		overrideFrom[overrides] = u;
+		overrideTo[overrides] = v;
+		overrideWeight[overrides] = weight;
+		overrides++;
+	}
+
+	private int weight(int x, int y, int slot) {
+		for (int k = 0; k < overrides; k++) {
+			if (overrideFrom[k] == x && overrideTo[k] == y) {
+				return overrideWeight[k];
+			}
+		}
+		return graph.weight(slot);
+	}
+
+	/**
+	 * tell whether changing the weight of u->v from oldWeight to newWeight can
+	 * change the tree of source s, given by row s of dist and parent
+	 *
+	 * @return false if the tree certainly stays the same
+	 */
+	static boolean isAffected(int[] dist, int[] parent, int row, int s,
+			int u, int v, int oldWeight, int newWeight) {
+		if (v == s || newWeight == oldWeight) {
+			return false;
+		}
+		if (newWeight > oldWeight) {
+			return parent[row + v] == u;
+		}
+		if (dist[row + u] == UNREACHABLE) {
+			return false;
+		}
+		long candidate = (long) dist[row + u] + newWeight;
+		return candidate < dist[row + v]
+				|| (candidate == dist[row + v] && u < parent[row + v]);
+	}
+
+	/**
+	 * repair the working tree after the weight of u->v changed; the graph or an
+	 * override must already give the new weight
+	 *
+	 * @param u
+	 *            tail of the changed edge
+	 * @param v
+	 *            head of the changed edge
+	 * @param oldWeight
+	 *            weight before the change
+	 * @param newWeight
+	 *            weight after the change, UNREACHABLE for a removed edge
+	 * @return true if the tree changed
+	 */
+	public boolean update(int u, int v, int oldWeight, int newWeight) {
+		if (!isAffected(dist, parent, 0, source, u, v, oldWeight, newWeight)) {
+			return false;
+		}
+		stamp++;
+		touchedCount = 0;
+		if (newWeight > oldWeight) {
+			repairIncrease(v);
+		} else {
+			repairDecrease(u, v, newWeight);
+		}
+		for (int i = 0; i < touchedCount; i++) {
+			position[touched[i]] = NOT_VISITED;
+		}
+		return true;
+	}
+
+	/*
+	 * the tree edge into v got more expensive: recompute the subtree of v
+	 */
+	private void repairIncrease(int v) {
+		collectSubtree(v);
+
+		for (int i = 0; i < touchedCount; i++) {
+			dist[touched[i]] = UNREACHABLE;
+			parent[touched[i]] = -1;
+		}
+
+		// best distance offered to each subtree vertex from outside of it
+		for (int i = 0; i < touchedCount; i++) {
+			int x = touched[i];
+			int best = UNREACHABLE;
+			for (int j = graph.firstInEdge(x); j < graph.lastInEdge(x); j++) {
+				int y = graph.inSource(j);
+				if (mark[y] == stamp || dist[y] == UNREACHABLE) {
+					continue;
+				}
+				int w = weight(y, x, graph.inSlot(j));
+				if (w != UNREACHABLE && dist[y] + w < best) {
+					best = dist[y] + w;
+				}
+			}
+			if (best != UNREACHABLE) {
+				dist[x] = best;
+				insert(x);
+			}
+		}
+
+		// Dijkstra restricted to the subtree
+		while (heapSize > 0) {
+			int x = deleteMin();
+			for (int e = graph.firstEdge(x); e < graph.lastEdge(x); e++) {
+				int z = graph.target(e);
+				if (mark[z] != stamp || position[z] == SETTLED) {
+					continue;
+				}
+				int w = weight(x, z, e);
+				if (w != UNREACHABLE && dist[x] + w < dist[z]) {
+					dist[z] = dist[x] + w;
+					if (position[z] == NOT_VISITED) {
+						insert(z);
+					} else {
+						siftUp(position[z]);
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < touchedCount; i++) {
+			canonicalParent(touched[i]);
+		}
+	}
+
+	/*
+	 * u->v got cheaper: propagate the improvement from v
+	 */
+	private void repairDecrease(int u, int v, int newWeight) {
+		int candidate = dist[u] + newWeight;
+		if (candidate == dist[v]) {
+			// only a new, smaller tie for v
+			parent[v] = u;
+			return;
+		}
+
+		dist[v] = candidate;
+		touch(v);
+		insert(v);
+		while (heapSize > 0) {
+			int x = deleteMin();
+			for (int e = graph.firstEdge(x); e < graph.lastEdge(x); e++) {
+				int z = graph.target(e);
+				if (z == source || position[z] == SETTLED) {
+					continue;
+				}
+				int w = weight(x, z, e);
+				if (w != UNREACHABLE && dist[x] + w < dist[z]) {
+					dist[z] = dist[x] + w;
+					if (position[z] == NOT_VISITED) {
+						if (mark[z] != stamp) {
+							touch(z);
+						}
+						insert(z);
+					} else {
+						siftUp(position[z]);
+					}
+				}
+			}
+		}
+
+		// improved vertices pick their parent among all in-neighbors, the
+		// others may gain a smaller tie from an improved neighbor
+		for (int i = 0; i < touchedCount; i++) {
+			canonicalParent(touched[i]);
+		}
+		for (int i = 0; i < touchedCount; i++) {
+			int y = touched[i];
+			for (int e = graph.firstEdge(y); e < graph.lastEdge(y); e++) {
+				int z = graph.target(e);
+				if (mark[z] == stamp || z == source
+						|| dist[z] == UNREACHABLE) {
+					continue;
+				}
+				int w = weight(y, z, e);
+				if (w != UNREACHABLE && dist[y] + w == dist[z]
+						&& y < parent[z]) {
+					parent[z] = y;
+				}
+			}
+		}
+	}
+
+	/*
+	 * mark every vertex whose tree path goes through v, walking up the parent
+	 * chains with memoization so the whole pass is O(V)
+	 */
+	private void collectSubtree(int v) {
+		// below: mark == stamp, outside: mark == -stamp
+		int outside = -stamp;
+		touch(v);
+		for (int x = 0; x < n; x++) {
+			if (dist[x] == UNREACHABLE || mark[x] == stamp
+					|| mark[x] == outside) {
+				continue;
+			}
+			int top = 0;
+			int y = x;
+			while (y != -1 && y != v && mark[y] != stamp && mark[y] != outside) {
+				stack[top++] = y;
+				y = parent[y];
+			}
+			boolean below = y != -1 && (y == v || mark[y] == stamp);
+			while (top > 0) {
+				int z = stack[--top];
+				if (below) {
+					touch(z);
+				} else {
+					mark[z] = outside;
+				}
+			}
+		}
+	}
+
+	private void touch(int x) {
+		mark[x] = stamp;
+		touched[touchedCount++] = x;
+	}
+
+	/*
+	 * smallest in-neighbor y with dist[y] + weight(y->x) == dist[x]
+	 */
+	private void canonicalParent(int x) {
+		parent[x] = -1;
+		if (dist[x] == UNREACHABLE) {
+			return;
+		}
+		for (int j = graph.firstInEdge(x); j < graph.lastInEdge(x); j++) {
+			int y = graph.inSource(j);
+			if (dist[y] == UNREACHABLE) {
+				continue;
+			}
+			int w = weight(y, x, graph.inSlot(j));
+			if (w != UNREACHABLE && dist[y] + w == dist[x]) {
+				parent[x] = y;
+				return;
+			}
+		}
+	}
+
+	/*
+	 * heap helpers
+	 */
+	private void insert(int v) {
+		heap[heapSize] = v;
+		position[v] = heapSize;
+		heapSize++;
+		siftUp(heapSize - 1);
+	}
+
+	private int deleteMin() {
+		int min = heap[0];
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		position[min] = SETTLED;
+		return min;
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int p = (i - 1) >>> 1;
+			if (dist[heap[p]] <= dist[v]) {
+				break;
+			}
+			heap[i] = heap[p];
+			position[heap[i]] = i;
+			i = p;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		while (true) {
+			int c = 2 * i + 1;
+			if (c >= heapSize) {
+				break;
+			}
+			if (c + 1 < heapSize && dist[heap[c + 1]] < dist[heap[c]]) {
+				c++;
+			}
+			if (dist[v] <= dist[heap[c]]) {
+				break;
+			}
+			heap[i] = heap[c];
+			position[heap[i]] = i;
+			i = c;
+		}
+		heap[i] = v;
+		position[v] = i;
+	}
+}
@@ -0,0 +1,36 @@
+package networkCapacityPlanning;
+
+/**
+ * Result of routing one demand matrix: flow matrix, total cost and network
+ * density, as NetworkDesign reports them.
+ *
+ * @author LiP
+ *
+ */
+public class FlowAssignment {
+
+	private final int[][] flow;
+	private final int totalCost;
+	private final float density;
+
+	public FlowAssignment(int[][] flow, int totalCost, float density) {
+		this.flow = flow;
+		this.totalCost = totalCost;
+		this.density = density;
+	}
+
+	/*
+	 * getters
+	 */
+	public int[][] getFlow() {
+		return flow;
+	}
+
+	public int getTotalCost() {
+		return totalCost;
+	}
+
+	public float getDensity() {
+		return density;
+	}
+}
@@ -4,19 +4,16 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Paint;
 import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import javax.swing.JFrame;
 
 import org.apache.commons.collections15.Transformer;
 
-import edu.princeton.cs.algs4.DijkstraSP;
-import edu.princeton.cs.algs4.DirectedEdge;
-import edu.princeton.cs.algs4.EdgeWeightedDigraph;
 import edu.uci.ics.jung.algorithms.layout.CircleLayout;
 import edu.uci.ics.jung.algorithms.layout.Layout;
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.util.EdgeType;
 import edu.uci.ics.jung.visualization.BasicVisualizationServer;
 import edu.uci.ics.jung.visualization.decorators.ToStringLabeller;
 import edu.uci.ics.jung.visualization.renderers.Renderer.VertexLabel.Position;
@@ -34,10 +31,29 @@ public class NetworkDesign {
 	private int[][] trafficDemand;
 	private int[][] unitCost;
 	private int[][] flow;
-	private EdgeWeightedDigraph costGraph;
-	private EdgeWeightedDigraph flowGraph;
+	private CSRGraph costGraph;
+	private CSRGraph flowGraph;
 	private int totalCost;
 	private float density;
+	// number of worker threads used by setFlow(), 1 means sequential
+	private int parallelism = 1;
+	private FlowAggregation flowAggregation = FlowAggregation.SUBTREE_SUM;
+	private RoutingEngine routingEngine = RoutingEngine.DIAL;
+	// route with BlockedFloydWarshall instead of one engine run per source
+	private boolean blockedAllPairs = false;
+	// shortest path trees of costGraph, reused by setFlow() while it is current
+	private RoutingPlan routingPlan;
+
+	/**
+	 * how setFlow() adds the demand of a source to the flow, both give the same
+	 * flow matrix
+	 */
+	public enum FlowAggregation {
+		// walk the path to every target, O(V * path length) per source
+		PATH_WALK,
+		// push subtree totals up the shortest path tree, O(V) per source
+		SUBTREE_SUM
+	}
 
 	public NetworkDesign(int numberOfNodes, int numberOfLowCostEdge) {
 		this.numberOfNodes = numberOfNodes;
@@ -69,11 +85,11 @@ public class NetworkDesign {
 		return flow;
 	}
 
-	public EdgeWeightedDigraph getCostGraph() {
+	public CSRGraph getCostGraph() {
 		return costGraph;
 	}
 
-	public EdgeWeightedDigraph getFlowGraph() {
+	public CSRGraph getFlowGraph() {
 		return flowGraph;
 	}
 
@@ -85,6 +101,26 @@ public class NetworkDesign {
 		return density;
 	}
 
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public FlowAggregation getFlowAggregation() {
+		return flowAggregation;
+	}
+
+	public RoutingEngine getRoutingEngine() {
+		return routingEngine;
+	}
+
+	public boolean isBlockedAllPairs() {
+		return blockedAllPairs;
+	}
+
+	public RoutingPlan getRoutingPlan() {
+		return routingPlan;
+	}
+
 	public void setNumberOfNodes(int n) {
 		if (n <= 0) {
 			throw new IllegalArgumentException(
@@ -103,6 +139,37 @@ public class NetworkDesign {
 		}
 	}
 
+	public void setParallelism(int n) {
+		if (n <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		} else {
+			parallelism = n;
+		}
+	}
+
+	public void setFlowAggregation(FlowAggregation aggregation) {
+		if (aggregation == null) {
+			throw new IllegalArgumentException(
+					"flow aggregation must not be null");
+		} else {
+			flowAggregation = aggregation;
+		}
+	}
+
+	public void setRoutingEngine(RoutingEngine engine) {
+		if (engine == null) {
+			throw new IllegalArgumentException(
+					"routing engine must not be null");
+		} else {
+			routingEngine = engine;
+		}
+	}
+
+	public void setBlockedAllPairs(boolean enabled) {
+		blockedAllPairs = enabled;
+	}
+
 	public void setTrafficDemand() {
 		trafficDemand = new int[numberOfNodes][numberOfNodes];
 
@@ -117,6 +184,22 @@ public class NetworkDesign {
 		}
 	}
 
+	/**
+	 * use a given demand matrix, e.g. a what-if scenario, instead of a random
+	 * one
+	 *
+	 * @param demand
+	 *            numberOfNodes x numberOfNodes traffic demand matrix
+	 */
+	public void setTrafficDemand(int[][] demand) {
+		if (demand.length != numberOfNodes) {
+			throw new IllegalArgumentException(
+					"demand matrix must have one row per node");
+		} else {
+			trafficDemand = demand;
+		}
+	}
+
 	public void setUnitCost() {
 		unitCost = new int[numberOfNodes][numberOfNodes];
 
@@ -150,39 +233,308 @@ public class NetworkDesign {
 			}
 		}
 
+		if (routingPlan != null && routingPlan.getGraph() == costGraph) {
+			int[] load = new int[costGraph.V()];
+			for (int s = 0; s < costGraph.V(); s++) {
+				routingPlan.addFlow(s, trafficDemand[s], 1, load, flow);
+			}
+			return;
+		}
+		if (blockedAllPairs) {
+			setFlowAllPairs();
+			return;
+		}
+		if (parallelism > 1) {
+			setFlowParallel();
+			return;
+		}
+
 		// use Dijkstra single source shortest path algorithm
 		// calculate shortest path to all other nodes from source node
+		ShortestPathEngine dijkstra = routingEngine.newEngine(costGraph.V());
+		ShortestPathTree sp = new ShortestPathTree(costGraph.V());
+		int[] load = new int[costGraph.V()];
 		for (int s = 0; s < costGraph.V(); s++) {
-			DijkstraSP sp = new DijkstraSP(costGraph, s);
+			dijkstra.run(costGraph, s, sp);
 
+			if (flowAggregation == FlowAggregation.SUBTREE_SUM) {
+				sp.addSubtreeFlow(trafficDemand[s], load, flow);
+				continue;
+			}
 			for (int t = 0; t < costGraph.V(); t++) {
 				if (sp.hasPathTo(t)) {
-					for (DirectedEdge e : sp.pathTo(t)) {
-						flow[e.from()][e.to()] += trafficDemand[s][t];
+					// walk the path t, parent(t), ..., s back to the source
+					for (int v = t; v != s; v = sp.parent(v)) {
+						flow[sp.parent(v)][v] += trafficDemand[s][t];
 					}
 				}
 			}
 		}
 	}
 
+	/*
+	 * sources are split into one range per worker, every worker routes its
+	 * range into a private per-edge accumulator and the accumulators are added
+	 * up when the workers join; integer sums make the result identical to the
+	 * sequential flow matrix
+	 */
+	private void setFlowParallel() {
+		int V = costGraph.V();
+		int grain = (V + parallelism - 1) / parallelism;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		int[] edgeFlow;
+		try {
+			edgeFlow = pool.invoke(new RouteTask(costGraph, trafficDemand,
+					routingEngine, flowAggregation, 0, V, grain));
+		} finally {
+			pool.shutdown();
+		}
+
+		for (int v = 0; v < V; v++) {
+			for (int e = costGraph.firstEdge(v); e < costGraph.lastEdge(v); e++) {
+				flow[v][costGraph.target(e)] += edgeFlow[e];
+			}
+		}
+	}
+
+	/*
+	 * dense cost matrices: solve all pairs at once and rebuild every source's
+	 * tree from the predecessor table
+	 */
+	private void setFlowAllPairs() {
+		BlockedFloydWarshall apsp = new BlockedFloydWarshall(costGraph,
+				BlockedFloydWarshall.DEFAULT_BLOCK_SIZE, parallelism);
+		ShortestPathTree sp = new ShortestPathTree(costGraph.V());
+		int[] load = new int[costGraph.V()];
+		for (int s = 0; s < costGraph.V(); s++) {
+			apsp.fillTree(s, sp);
+			sp.addSubtreeFlow(trafficDemand[s], load, flow);
+		}
+	}
+
+	/**
+	 * compute and keep the shortest path trees of the current cost graph, with
+	 * the configured engine and parallelism; until setCostGraph() is called
+	 * again, setFlow() only routes the demand along the kept trees
+	 */
+	public void setRoutingPlan() {
+		if (blockedAllPairs) {
+			routingPlan = RoutingPlan.build(costGraph, new BlockedFloydWarshall(
+					costGraph, BlockedFloydWarshall.DEFAULT_BLOCK_SIZE,
+					parallelism));
+		} else {
+			routingPlan = RoutingPlan.build(costGraph, routingEngine,
+					parallelism);
+		}
+	}
+
+	/**
+	 * re-price one link and reroute incrementally: only the shortest path
+	 * trees that can change are repaired, and the flow and total cost are
+	 * updated in place. Needs a current routing plan (setRoutingPlan()) and
+	 * flow and total cost computed from it; call setFlowGraph() and
+	 * setDensity() again if those are needed afterwards.
+	 *
+	 * @param i
+	 *            tail of the link
+	 * @param j
+	 *            head of the link
+	 * @param cost
+	 *            new positive unit cost
+	 */
+	public void updateUnitCost(int i, int j, int cost) {
+		if (routingPlan == null || routingPlan.getGraph() != costGraph) {
+			throw new IllegalStateException(
+					"incremental rerouting needs a routing plan of the current cost graph");
+		}
+		if (i == j || cost <= 0) {
+			throw new IllegalArgumentException(
+					"link must not be a self loop and cost must be a positive number");
+		}
+		totalCost += routingPlan.updateCost(i, j, cost, trafficDemand, flow);
+		unitCost[i][j] = cost;
+	}
+
+	/**
+	 * re-price several links, see updateUnitCost(int, int, int)
+	 *
+	 * @param from
+	 *            tails of the links
+	 * @param to
+	 *            heads of the links
+	 * @param cost
+	 *            new unit costs
+	 */
+	public void updateUnitCost(int[] from, int[] to, int[] cost) {
+		if (from.length != to.length || from.length != cost.length) {
+			throw new IllegalArgumentException(
+					"link and cost arrays must have the same length");
+		}
+		for (int k = 0; k < from.length; k++) {
+			updateUnitCost(from[k], to[k], cost[k]);
+		}
+	}
+
+	/**
+	 * change one demand entry and move the difference along the cached s->t
+	 * path, updating flow and total cost in place. Needs a current routing
+	 * plan and flow and total cost computed from it, like updateUnitCost().
+	 *
+	 * @param s
+	 *            source node
+	 * @param t
+	 *            target node
+	 * @param delta
+	 *            change of demand[s][t], the demand must stay non-negative
+	 */
+	public void updateTrafficDemand(int s, int t, int delta) {
+		if (routingPlan == null || routingPlan.getGraph() != costGraph) {
+			throw new IllegalStateException(
+					"incremental routing needs a routing plan of the current cost graph");
+		}
+		if (s == t || trafficDemand[s][t] + delta < 0) {
+			throw new IllegalArgumentException("demand change " + s + "->"
+					+ t + " " + delta
+					+ " is a self loop or makes the demand negative");
+		}
+		trafficDemand[s][t] += delta;
+		if (routingPlan.hasPath(s, t)) {
+			totalCost += delta * routingPlan.distTo(s, t);
+		}
+		routingPlan.addPathFlow(s, t, delta, flow);
+	}
+
+	/**
+	 * apply a batch of demand changes (s[k], t[k], delta[k]). Changes are
+	 * grouped by source; a source with few changes moves each of them along
+	 * its path, a source with many changes is routed with one subtree pass
+	 * over its tree. Either all changes are applied or, if one would make a
+	 * demand negative, none.
+	 *
+	 * @param s
+	 *            source nodes
+	 * @param t
+	 *            target nodes
+	 * @param delta
+	 *            demand changes
+	 */
+	public void updateTrafficDemand(int[] s, int[] t, int[] delta) {
+		if (routingPlan == null || routingPlan.getGraph() != costGraph) {
+			throw new IllegalStateException(
+					"incremental routing needs a routing plan of the current cost graph");
+		}
+		if (s.length != t.length || s.length != delta.length) {
+			throw new IllegalArgumentException(
+					"source, target and delta arrays must have the same length");
+		}
+
+		// apply to the demand first, rolling back if an entry goes negative
+		for (int k = 0; k < s.length; k++) {
+			if (s[k] == t[k] || trafficDemand[s[k]][t[k]] + delta[k] < 0) {
+				for (int r = k - 1; r >= 0; r--) {
+					trafficDemand[s[r]][t[r]] -= delta[r];
+				}
+				throw new IllegalArgumentException("demand change " + s[k]
+						+ "->" + t[k] + " " + delta[k]
+						+ " is a self loop or makes the demand negative");
+			}
+			trafficDemand[s[k]][t[k]] += delta[k];
+		}
+
+		// group the changes by source with a counting sort
+		int[] groupStart = new int[numberOfNodes + 1];
+		for (int k = 0; k < s.length; k++) {
+			groupStart[s[k] + 1]++;
+		}
+		for (int v = 0; v < numberOfNodes; v++) {
+			groupStart[v + 1] += groupStart[v];
+		}
+		int[] next = groupStart.clone();
+		int[] bySource = new int[s.length];
+		for (int k = 0; k < s.length; k++) {
+			bySource[next[s[k]]++] = k;
+		}
+
+		int[] deltaRow = null;
+		int[] load = null;
+		for (int v = 0; v < numberOfNodes; v++) {
+			int count = groupStart[v + 1] - groupStart[v];
+			// a path walk touches only a few edges, a subtree pass all V - 1
+			boolean subtreePass = count > numberOfNodes / 16;
+			if (subtreePass && deltaRow == null) {
+				deltaRow = new int[numberOfNodes];
+				load = new int[numberOfNodes];
+			}
+			for (int i = groupStart[v]; i < groupStart[v + 1]; i++) {
+				int k = bySource[i];
+				if (routingPlan.hasPath(v, t[k])) {
+					totalCost += delta[k] * routingPlan.distTo(v, t[k]);
+				}
+				if (subtreePass) {
+					deltaRow[t[k]] += delta[k];
+				} else {
+					routingPlan.addPathFlow(v, t[k], delta[k], flow);
+				}
+			}
+			if (subtreePass) {
+				routingPlan.addFlow(v, deltaRow, 1, load, flow);
+				for (int i = groupStart[v]; i < groupStart[v + 1]; i++) {
+					deltaRow[t[bySource[i]]] = 0;
+				}
+			}
+		}
+	}
+
+	/**
+	 * fail every link once and report total cost and max link load of each
+	 * failure; only the sources routed over the failed link are rerouted, and
+	 * failures run on getParallelism() threads. Needs a current routing plan
+	 * and flow and total cost computed from it.
+	 *
+	 * @return per failure cost / max link load report
+	 */
+	public SurvivabilityReport analyzeSurvivability() {
+		if (routingPlan == null || routingPlan.getGraph() != costGraph) {
+			throw new IllegalStateException(
+					"survivability analysis needs a routing plan of the current cost graph");
+		}
+		return SurvivabilityAnalysis.run(routingPlan, trafficDemand, flow,
+				totalCost, parallelism);
+	}
+
 	public void setCostGraph() {
-		costGraph = createGraph(unitCost);
+		costGraph = CSRGraph.fromMatrix(unitCost);
 	}
 
 	public void setFlowGraph() {
-		flowGraph = createGraph(flow);
+		flowGraph = CSRGraph.fromMatrix(flow);
 	}
 
 	public void setTotalCost() {
-		totalCost = 0;
+		totalCost = totalCost(flow, unitCost);
+	}
+
+	public void setDensity() {
+		density = density(flow);
+	}
+
+	/*
+	 * cost of a flow matrix under given unit costs
+	 */
+	static int totalCost(int[][] flow, int[][] unitCost) {
+		int result = 0;
 		for (int i = 0; i < flow.length; i++) {
 			for (int j = 0; j < flow[i].length; j++) {
-				totalCost += flow[i][j] * unitCost[i][j];
+				result += flow[i][j] * unitCost[i][j];
 			}
 		}
+		return result;
 	}
 
-	public void setDensity() {
+	/*
+	 * fraction of the n * (n - 1) possible links that carry flow
+	 */
+	static float density(int[][] flow) {
 		int countEdge = 0;
 		for (int i = 0; i < flow.length; i++) {
 			for (int j = 0; j < flow[i].length; j++) {
@@ -192,8 +544,7 @@ public class NetworkDesign {
 			}
 		}
 
-		density = (float) countEdge / (numberOfNodes * (numberOfNodes - 1));
-
+		return (float) countEdge / (flow.length * (flow.length - 1));
 	}
 
 	public void printInput() {
@@ -227,20 +578,9 @@ public class NetworkDesign {
 
 	// method for flow graph visualization
 	public static void visualizeGraph(int[][] matrix, int N, int k) {
-		Graph<Integer, String> graph = new DirectedSparseGraph<Integer, String>();
-
-		for (int i = 0; i < matrix.length; i++) {
-			graph.addVertex((Integer) i);
-		}
-
-		for (int i = 0; i < matrix.length; i++) {
-			for (int j = 0; j < matrix[i].length; j++) {
-				// only select edge that has flow bigger than 0
-				if (matrix[i][j] > 0) {
-					graph.addEdge(i + "->" + j, i, j, EdgeType.DIRECTED);
-				}
-			}
-		}
+		// only edges that have flow bigger than 0 are kept
+		Graph<Integer, String> graph = CSRGraph.fromMatrix(matrix)
+				.toJungGraph();
 
 		Layout<Integer, String> layout = new CircleLayout<Integer, String>(
 				graph);
@@ -268,19 +608,72 @@ public class NetworkDesign {
 		frame.setVisible(true);
 	}
 
-	// generate a random integer from [0, 1, ..., range]
-	private static int randomGen(int range) {
-		return (int) ((range + 1) * Math.random());
-	}
+	/*
+	 * routes the demand of sources [lo, hi) and returns the flow per edge slot
+	 * of the cost graph
+	 */
+	@SuppressWarnings("serial")
+	private static class RouteTask extends RecursiveTask<int[]> {
+		private final CSRGraph graph;
+		private final int[][] demand;
+		private final RoutingEngine engine;
+		private final FlowAggregation aggregation;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		RouteTask(CSRGraph graph, int[][] demand, RoutingEngine engine,
+				FlowAggregation aggregation, int lo, int hi, int grain) {
+			this.graph = graph;
+			this.demand = demand;
+			this.engine = engine;
+			this.aggregation = aggregation;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
 
-	private static EdgeWeightedDigraph createGraph(int[][] edgeMatrix) {
-		EdgeWeightedDigraph output = new EdgeWeightedDigraph(edgeMatrix.length);
-		for (int i = 0; i < edgeMatrix.length; i++) {
-			for (int j = 0; j < edgeMatrix[i].length; j++) {
-				DirectedEdge edge = new DirectedEdge(i, j, edgeMatrix[i][j]);
-				output.addEdge(edge);
+		@Override
+		protected int[] compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				RouteTask left = new RouteTask(graph, demand, engine,
+						aggregation, lo, mid, grain);
+				RouteTask right = new RouteTask(graph, demand, engine,
+						aggregation, mid, hi, grain);
+				left.fork();
+				int[] rightFlow = right.compute();
+				int[] leftFlow = left.join();
+				for (int e = 0; e < leftFlow.length; e++) {
+					leftFlow[e] += rightFlow[e];
+				}
+				return leftFlow;
 			}
+
+			int[] edgeFlow = new int[graph.E()];
+			ShortestPathEngine dijkstra = engine.newEngine(graph.V());
+			ShortestPathTree sp = new ShortestPathTree(graph.V());
+			int[] load = new int[graph.V()];
+			for (int s = lo; s < hi; s++) {
+				dijkstra.run(graph, s, sp);
+				if (aggregation == FlowAggregation.SUBTREE_SUM) {
+					sp.addSubtreeFlow(demand[s], load, edgeFlow);
+					continue;
+				}
+				for (int t = 0; t < graph.V(); t++) {
+					if (sp.hasPathTo(t)) {
+						for (int v = t; v != s; v = sp.parent(v)) {
+							edgeFlow[sp.parentEdge(v)] += demand[s][t];
+						}
+					}
+				}
+			}
+			return edgeFlow;
 		}
-		return output;
+	}
+
+	// generate a random integer from [0, 1, ..., range]
+	private static int randomGen(int range) {
+		return (int) ((range + 1) * Math.random());
 	}
 }
@@ -4,8 +4,23 @@ public class Project1 {
 
 	private static final int NUMBER_OF_ITERATIONS = 50;
 
+	private static final int MAX_OPTIMIZER_MOVES = 1000;
+
+	/*
+	 * pass -apsp to route with the blocked all pairs solver instead of one
+	 * Dijkstra run per source, and -optimize to improve the placement of the
+	 * low cost links of every random design by local search
+	 */
 	public static void main(String[] args) {
 		NetworkDesign network = new NetworkDesign();
+		boolean optimize = false;
+		for (String arg : args) {
+			if (arg.equals("-apsp")) {
+				network.setBlockedAllPairs(true);
+			} else if (arg.equals("-optimize")) {
+				optimize = true;
+			}
+		}
 
 		float[] avgTotalCost = new float[16];
 		float[] avgDensity = new float[16];
@@ -26,9 +41,17 @@ public class Project1 {
 				network.setTrafficDemand();
 				network.setUnitCost();
 				network.setCostGraph();
-				network.setFlow();
+				if (optimize) {
+					network.setRoutingPlan();
+					network.setFlow();
+					network.setTotalCost();
+					new TopologyOptimizer(network)
+							.optimize(MAX_OPTIMIZER_MOVES);
+				} else {
+					network.setFlow();
+					network.setTotalCost();
+				}
 				network.setFlowGraph();
-				network.setTotalCost();
 				network.setDensity();
 				costSum += network.getTotalCost();
 				densitySum += network.getDensity();
@@ -0,0 +1,41 @@
+package networkCapacityPlanning;
+
+/**
+ * Shortest path engines available to NetworkDesign.setFlow(). All of them
+ * produce the same canonical ShortestPathTree, so the flow matrix does not
+ * depend on the choice.
+ *
+ * @author LiP
+ *
+ */
+public enum RoutingEngine {
+
+	// algs4 DijkstraSP, kept as the reference implementation
+	ALGS4 {
+		@Override
+		public ShortestPathEngine newEngine(int V) {
+			return new Algs4Dijkstra();
+		}
+	},
+	// Dijkstra with an indexed binary heap over primitive arrays
+	BINARY_HEAP {
+		@Override
+		public ShortestPathEngine newEngine(int V) {
+			return new CSRDijkstra(V);
+		}
+	},
+	// Dial's bucket queue, for small integer weights
+	DIAL {
+		@Override
+		public ShortestPathEngine newEngine(int V) {
+			return new DialDijkstra(V);
+		}
+	};
+
+	/**
+	 * @param V
+	 *            number of vertices of the graphs the engine will run on
+	 * @return a new engine instance for one worker
+	 */
+	public abstract ShortestPathEngine newEngine(int V);
+}
@@ -0,0 +1,346 @@
+package networkCapacityPlanning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The shortest path trees of every source of a cost graph, computed once.
+ * Routing depends only on the costs, the demand only scales what moves along
+ * each path, so any number of demand matrices can be evaluated against a
+ * plan in O(V^2) each without running a shortest path engine again.
+ *
+ * Trees are stored row by row in flat arrays: entry s * V + v holds the
+ * distance and the parent of v in the tree of source s, and the settle order
+ * of source s lives in the same row of order[].
+ *
+ * @author LiP
+ *
+ */
+public class RoutingPlan {
+
+	private final CSRGraph graph;
+	private final int n;
+	final int[] dist;
+	final int[] parent;
+	final int[] order;
+	// number of vertices reached from every source
+	final int[] size;
+	// workspace for updateCost(), created on first use
+	private DynamicRouting dynamicRouting;
+
+	private RoutingPlan(CSRGraph graph) {
+		this.graph = graph;
+		this.n = graph.V();
+		this.dist = new int[n * n];
+		this.parent = new int[n * n];
+		this.order = new int[n * n];
+		this.size = new int[n];
+	}
+
+	/**
+	 * route every source of a graph with a single source engine
+	 *
+	 * @param graph
+	 *            cost graph
+	 * @param engine
+	 *            shortest path engine
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @return the plan
+	 */
+	public static RoutingPlan build(CSRGraph graph, RoutingEngine engine,
+			int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		RoutingPlan plan = new RoutingPlan(graph);
+		int grain = (plan.n + parallelism - 1) / parallelism;
+		PlanTask task = new PlanTask(plan, engine, 0, plan.n, grain);
+		if (parallelism == 1) {
+			task.compute();
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(task);
+			} finally {
+				pool.shutdown();
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * take the trees of an all pairs solution
+	 *
+	 * @param graph
+	 *            cost graph the solution was computed on
+	 * @param apsp
+	 *            all pairs solution
+	 * @return the plan
+	 */
+	public static RoutingPlan build(CSRGraph graph, BlockedFloydWarshall apsp) {
+		RoutingPlan plan = new RoutingPlan(graph);
+		ShortestPathTree sp = new ShortestPathTree(plan.n);
+		for (int s = 0; s < plan.n; s++) {
+			apsp.fillTree(s, sp);
+			plan.store(sp);
+		}
+		return plan;
+	}
+
+	/*
+	 * copy a tree into its row
+	 */
+	private void store(ShortestPathTree sp) {
+		int row = sp.source() * n;
+		System.arraycopy(sp.dist, 0, dist, row, n);
+		System.arraycopy(sp.parent, 0, parent, row, n);
+		System.arraycopy(sp.order, 0, order, row, sp.size());
+		size[sp.source()] = sp.size();
+	}
+
+	/*
+	 * copy a repaired tree back into its row, the settle order is rebuilt by
+	 * sorting the reached vertices by distance
+	 */
+	void store(DynamicRouting tree) {
+		int s = tree.source();
+		int row = s * n;
+		System.arraycopy(tree.dist, 0, dist, row, n);
+		System.arraycopy(tree.parent, 0, parent, row, n);
+
+		int reached = 0;
+		long[] keys = new long[n];
+		for (int v = 0; v < n; v++) {
+			if (tree.dist[v] != ShortestPathTree.UNREACHABLE) {
+				keys[reached++] = ((long) tree.dist[v] << 32) | v;
+			}
+		}
+		Arrays.sort(keys, 0, reached);
+		for (int i = 0; i < reached; i++) {
+			order[row + i] = (int) keys[i];
+		}
+		size[s] = reached;
+	}
+
+	/*
+	 * getters
+	 */
+	public CSRGraph getGraph() {
+		return graph;
+	}
+
+	public int V() {
+		return n;
+	}
+
+	public boolean hasPath(int s, int t) {
+		return dist[s * n + t] != ShortestPathTree.UNREACHABLE;
+	}
+
+	public int distTo(int s, int t) {
+		return dist[s * n + t];
+	}
+
+	public int parent(int s, int t) {
+		return parent[s * n + t];
+	}
+
+	/**
+	 * route a demand matrix along the plan
+	 *
+	 * @param demand
+	 *            traffic demand matrix
+	 * @return flow matrix, the same setFlow() computes for these costs
+	 */
+	public int[][] flow(int[][] demand) {
+		int[][] flow = new int[n][n];
+		int[] load = new int[n];
+		for (int s = 0; s < n; s++) {
+			addFlow(s, demand[s], 1, load, flow);
+		}
+		return flow;
+	}
+
+	/*
+	 * subtree sums of one source, see ShortestPathTree.addSubtreeFlow; sign -1
+	 * takes the demand of the source back out of the flow
+	 */
+	void addFlow(int s, int[] demand, int sign, int[] load, int[][] flow) {
+		int row = s * n;
+		for (int i = size[s] - 1; i > 0; i--) {
+			int v = order[row + i];
+			int p = parent[row + v];
+			int subtree = load[v] + demand[v];
+			load[v] = 0;
+			load[p] += subtree;
+			flow[p][v] += sign * subtree;
+		}
+		load[s] = 0;
+	}
+
+	/*
+	 * add an amount of demand along the s->t path only, O(path length)
+	 */
+	void addPathFlow(int s, int t, int amount, int[][] flow) {
+		int row = s * n;
+		if (dist[row + t] == ShortestPathTree.UNREACHABLE) {
+			return;
+		}
+		for (int v = t; v != s; v = parent[row + v]) {
+			flow[parent[row + v]][v] += amount;
+		}
+	}
+
+	/*
+	 * cost of the demand of one source
+	 */
+	int sourceCost(int s, int[] demand) {
+		int row = s * n;
+		int result = 0;
+		for (int t = 0; t < n; t++) {
+			if (demand[t] != 0
+					&& dist[row + t] != ShortestPathTree.UNREACHABLE) {
+				result += demand[t] * dist[row + t];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * change the weight of one edge of the graph and repair only the trees
+	 * that can change, moving their demand from the old to the new paths in a
+	 * flow matrix
+	 *
+	 * @param u
+	 *            tail of the edge
+	 * @param v
+	 *            head of the edge
+	 * @param cost
+	 *            new positive weight
+	 * @param demand
+	 *            traffic demand matrix the flow was routed for
+	 * @param flow
+	 *            flow matrix, updated in place
+	 * @return change of the total cost
+	 */
+	public int updateCost(int u, int v, int cost, int[][] demand, int[][] flow) {
+		int slot = graph.findEdge(u, v);
+		if (slot == -1) {
+			throw new IllegalArgumentException("graph has no edge " + u + "->"
+					+ v);
+		}
+		int oldCost = graph.weight(slot);
+		if (oldCost == cost) {
+			return 0;
+		}
+		graph.setWeight(slot, cost);
+		if (dynamicRouting == null) {
+			dynamicRouting = new DynamicRouting(graph);
+		}
+
+		int delta = 0;
+		int[] load = new int[n];
+		for (int s = 0; s < n; s++) {
+			if (!DynamicRouting.isAffected(dist, parent, s * n, s, u, v,
+					oldCost, cost)) {
+				continue;
+			}
+			addFlow(s, demand[s], -1, load, flow);
+			delta -= sourceCost(s, demand[s]);
+
+			dynamicRouting.load(this, s);
+			dynamicRouting.update(u, v, oldCost, cost);
+			store(dynamicRouting);
+
+			addFlow(s, demand[s], 1, load, flow);
+			delta += sourceCost(s, demand[s]);
+		}
+		return delta;
+	}
+
+	/**
+	 * total cost of a demand matrix: every unit of demand pays the length of
+	 * its shortest path
+	 *
+	 * @param demand
+	 *            traffic demand matrix
+	 * @return total cost, the same setTotalCost() computes
+	 */
+	public int totalCost(int[][] demand) {
+		int result = 0;
+		for (int s = 0; s < n; s++) {
+			result += sourceCost(s, demand[s]);
+		}
+		return result;
+	}
+
+	/**
+	 * evaluate one demand scenario
+	 *
+	 * @param demand
+	 *            traffic demand matrix
+	 * @return flow, total cost and density of the scenario
+	 */
+	public FlowAssignment evaluate(int[][] demand) {
+		int[][] flow = flow(demand);
+		return new FlowAssignment(flow, totalCost(demand),
+				NetworkDesign.density(flow));
+	}
+
+	/**
+	 * evaluate a batch of demand scenarios against the same routing
+	 *
+	 * @param demands
+	 *            traffic demand matrices
+	 * @return one result per scenario, in the same order
+	 */
+	public List<FlowAssignment> evaluate(List<int[][]> demands) {
+		List<FlowAssignment> result = new ArrayList<FlowAssignment>();
+		for (int[][] demand : demands) {
+			result.add(evaluate(demand));
+		}
+		return result;
+	}
+
+	/*
+	 * computes the trees of sources [lo, hi), every leaf with its own engine
+	 */
+	@SuppressWarnings("serial")
+	private static class PlanTask extends RecursiveAction {
+		private final RoutingPlan plan;
+		private final RoutingEngine engine;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		PlanTask(RoutingPlan plan, RoutingEngine engine, int lo, int hi,
+				int grain) {
+			this.plan = plan;
+			this.engine = engine;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new PlanTask(plan, engine, lo, mid, grain),
+						new PlanTask(plan, engine, mid, hi, grain));
+				return;
+			}
+			ShortestPathEngine dijkstra = engine.newEngine(plan.n);
+			ShortestPathTree sp = new ShortestPathTree(plan.n);
+			for (int s = lo; s < hi; s++) {
+				dijkstra.run(plan.graph, s, sp);
+				plan.store(sp);
+			}
+		}
+	}
+}
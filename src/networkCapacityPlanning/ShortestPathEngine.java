@@ -0,0 +1,24 @@
+package networkCapacityPlanning;
+
+/**
+ * Single source shortest path algorithm filling a ShortestPathTree. Engines
+ * keep their own working arrays, so one instance is reused for every source
+ * of a worker but is never shared between threads.
+ *
+ * @author LiP
+ *
+ */
+public interface ShortestPathEngine {
+
+	/**
+	 * compute the shortest path tree of source s
+	 *
+	 * @param graph
+	 *            input graph, positive weights
+	 * @param s
+	 *            source vertex
+	 * @param tree
+	 *            output, overwritten
+	 */
+	void run(CSRGraph graph, int s, ShortestPathTree tree);
+}
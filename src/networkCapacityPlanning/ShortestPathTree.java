@@ -0,0 +1,170 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+
+/**
+ * Single source shortest path tree over a CSRGraph, kept in primitive arrays
+ * so that one instance can be reused for every source of an all-pairs run.
+ *
+ * Ties are broken canonically: the parent of a vertex w is the smallest
+ * vertex v such that distTo(v) + weight(v->w) == distTo(w). With positive
+ * edge weights this tree does not depend on the order in which equal
+ * distances are settled, so every engine filling it produces the same tree.
+ *
+ * @author LiP
+ *
+ */
+public class ShortestPathTree {
+
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private int source;
+	// number of reached vertices, stored in order[0, size) by settle order
+	private int size;
+	final int[] dist;
+	final int[] parent;
+	final int[] parentEdge;
+	final int[] order;
+
+	public ShortestPathTree(int V) {
+		dist = new int[V];
+		parent = new int[V];
+		parentEdge = new int[V];
+		order = new int[V];
+	}
+
+	/*
+	 * clear the tree before filling it for source s
+	 */
+	void reset(int s) {
+		Arrays.fill(dist, UNREACHABLE);
+		Arrays.fill(parent, -1);
+		Arrays.fill(parentEdge, -1);
+		dist[s] = 0;
+		source = s;
+		size = 0;
+	}
+
+	/*
+	 * mark v as settled, vertices must be settled in non-decreasing distance
+	 */
+	void settle(int v) {
+		order[size++] = v;
+	}
+
+	/*
+	 * settle every reached vertex in order of non-decreasing distance, ties by
+	 * vertex; for engines that compute distances without a settle order
+	 */
+	void settleByDistance() {
+		int reached = 0;
+		for (int v = 0; v < dist.length; v++) {
+			if (dist[v] != UNREACHABLE) {
+				reached++;
+			}
+		}
+		long[] keys = new long[reached];
+		int k = 0;
+		for (int v = 0; v < dist.length; v++) {
+			if (dist[v] != UNREACHABLE) {
+				keys[k++] = ((long) dist[v] << 32) | v;
+			}
+		}
+		Arrays.sort(keys);
+		size = 0;
+		for (long key : keys) {
+			order[size++] = (int) key;
+		}
+	}
+
+	/*
+	 * getters
+	 */
+	public int V() {
+		return dist.length;
+	}
+
+	public int source() {
+		return source;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean hasPathTo(int v) {
+		return dist[v] != UNREACHABLE;
+	}
+
+	public int distTo(int v) {
+		return dist[v];
+	}
+
+	/**
+	 * @param v
+	 *            vertex
+	 * @return previous vertex on the shortest path to v, or -1 for the source
+	 *         and unreachable vertices
+	 */
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	/**
+	 * @param v
+	 *            vertex
+	 * @return CSRGraph slot of the last edge on the shortest path to v, or -1
+	 */
+	public int parentEdge(int v) {
+		return parentEdge[v];
+	}
+
+	/**
+	 * route the demand of the source along the tree in O(V) without walking
+	 * the individual paths: the demand of every reached vertex is loaded onto
+	 * it, then subtree totals are pushed up to the root in reverse settle
+	 * order, and the total of a subtree is exactly the flow on the edge into
+	 * its root
+	 *
+	 * @param demand
+	 *            demand of the source to every vertex
+	 * @param load
+	 *            scratch array of size V, all zero on entry and on return
+	 * @param edgeFlow
+	 *            flow per CSRGraph edge slot, the routed demand is added
+	 */
+	public void addSubtreeFlow(int[] demand, int[] load, int[] edgeFlow) {
+		for (int i = size - 1; i > 0; i--) {
+			int v = order[i];
+			int subtree = load[v] + demand[v];
+			load[v] = 0;
+			load[parent[v]] += subtree;
+			edgeFlow[parentEdge[v]] += subtree;
+		}
+		load[source] = 0;
+	}
+
+	/**
+	 * same as addSubtreeFlow(int[], int[], int[]) but adds the routed demand
+	 * to a flow matrix
+	 */
+	public void addSubtreeFlow(int[] demand, int[] load, int[][] flow) {
+		for (int i = size - 1; i > 0; i--) {
+			int v = order[i];
+			int subtree = load[v] + demand[v];
+			load[v] = 0;
+			load[parent[v]] += subtree;
+			flow[parent[v]][v] += subtree;
+		}
+		load[source] = 0;
+	}
+
+	/**
+	 * @param i
+	 *            index in [0, size())
+	 * @return the i-th settled vertex, parents always come before children
+	 */
+	public int order(int i) {
+		return order[i];
+	}
+}
@@ -0,0 +1,362 @@
+package networkCapacityPlanning;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Single link failure sweep over a routed network. A failure of u->v only
+ * changes the trees of the sources that route through it, i.e. the sources
+ * whose tree has u as parent of v; they are listed per link once, in a single
+ * pass over the plan's parents. Only those are repaired, with DynamicRouting
+ * and the link overridden as removed, and only the flow of the cut off
+ * subtree moves: its demand leaves the old paths and follows the new ones.
+ * The link failures are independent and are spread over a ForkJoinPool,
+ * each worker with its own workspace, which grows with the links a failure
+ * changes rather than with n^2.
+ *
+ * @author LiP
+ *
+ */
+public class SurvivabilityAnalysis {
+
+	private static final int EMPTY = -1;
+
+	private final RoutingPlan plan;
+	private final CSRGraph graph;
+	private final int n;
+	private final int[][] demand;
+	private final int[][] flow;
+	private final int totalCost;
+	// tail vertex of every edge slot
+	private final int[] tail;
+	// sources whose tree uses edge slot e, in
+	// affectedSource[affectedFirst[e], affectedFirst[e + 1])
+	private final int[] affectedFirst;
+	private final int[] affectedSource;
+	// links with positive flow, by decreasing flow, as u * n + v
+	private final int[] byLoad;
+	private final int baseMaxLinkLoad;
+
+	// results, indexed by edge slot
+	private final int[] failedTotalCost;
+	private final int[] failedMaxLinkLoad;
+	private final int[] unroutedDemand;
+
+	private SurvivabilityAnalysis(RoutingPlan plan, int[][] demand,
+			int[][] flow, int totalCost) {
+		this.plan = plan;
+		this.graph = plan.getGraph();
+		this.n = graph.V();
+		this.demand = demand;
+		this.flow = flow;
+		this.totalCost = totalCost;
+
+		tail = new int[graph.E()];
+		for (int u = 0; u < n; u++) {
+			for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+				tail[e] = u;
+			}
+		}
+
+		// every tree edge s: parent -> v, counted then filled per slot
+		int E = graph.E();
+		affectedFirst = new int[E + 1];
+		for (int s = 0; s < n; s++) {
+			for (int v = 0; v < n; v++) {
+				int p = plan.parent[s * n + v];
+				if (p >= 0) {
+					affectedFirst[graph.findEdge(p, v) + 1]++;
+				}
+			}
+		}
+		for (int e = 0; e < E; e++) {
+			affectedFirst[e + 1] += affectedFirst[e];
+		}
+		affectedSource = new int[affectedFirst[E]];
+		int[] next = Arrays.copyOf(affectedFirst, E);
+		for (int s = 0; s < n; s++) {
+			for (int v = 0; v < n; v++) {
+				int p = plan.parent[s * n + v];
+				if (p >= 0) {
+					affectedSource[next[graph.findEdge(p, v)]++] = s;
+				}
+			}
+		}
+
+		// flow only runs on links, so the edge slots cover every loaded one
+		int loaded = 0;
+		long[] keys = new long[E];
+		for (int e = 0; e < E; e++) {
+			int u = tail[e];
+			int v = graph.target(e);
+			if (flow[u][v] > 0) {
+				// ascending sort of the negated load gives decreasing load
+				keys[loaded++] = ((long) -flow[u][v] << 32) | (u * n + v);
+			}
+		}
+		Arrays.sort(keys, 0, loaded);
+		byLoad = new int[loaded];
+		for (int i = 0; i < loaded; i++) {
+			byLoad[i] = (int) keys[i];
+		}
+		baseMaxLinkLoad = loaded == 0 ? 0 : flow[byLoad[0] / n][byLoad[0] % n];
+
+		failedTotalCost = new int[graph.E()];
+		failedMaxLinkLoad = new int[graph.E()];
+		unroutedDemand = new int[graph.E()];
+	}
+
+	/**
+	 * fail every link of the plan's graph once; a failure whose total cost
+	 * does not fit an int throws an ArithmeticException
+	 *
+	 * @param plan
+	 *            routing plan of the intact network
+	 * @param demand
+	 *            traffic demand matrix
+	 * @param flow
+	 *            flow matrix routed along the plan
+	 * @param totalCost
+	 *            total cost of that flow
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @return cost and max link load per failure
+	 */
+	public static SurvivabilityReport run(RoutingPlan plan, int[][] demand,
+			int[][] flow, int totalCost, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		SurvivabilityAnalysis analysis = new SurvivabilityAnalysis(plan,
+				demand, flow, totalCost);
+		int E = analysis.graph.E();
+		int grain = Math.max(1, (E + parallelism - 1) / parallelism);
+		FailureTask task = analysis.new FailureTask(0, E, grain);
+		if (parallelism == 1) {
+			task.compute();
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(task);
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		int[] to = new int[E];
+		for (int e = 0; e < E; e++) {
+			to[e] = analysis.graph.target(e);
+		}
+		return new SurvivabilityReport(totalCost, analysis.baseMaxLinkLoad,
+				analysis.tail, to,
+				analysis.failedTotalCost, analysis.failedMaxLinkLoad,
+				analysis.unroutedDemand);
+	}
+
+	/*
+	 * workspace of one worker
+	 */
+	private class Worker {
+		private final DynamicRouting tree = new DynamicRouting(graph);
+		// flow change per link u * n + v for the current failure, in an open
+		// addressed table of the links it changed; used lists their slots
+		private int[] linkKey = emptyTable(64);
+		private int[] linkDelta = new int[64];
+		private int[] used = new int[64];
+		private int usedCount;
+		// subtree sums and sort keys over the cut off subtree
+		private final int[] sub = new int[n];
+		private final long[] keys = new long[n];
+
+		void fail(int e) {
+			if (affectedFirst[e] == affectedFirst[e + 1]) {
+				// no tree uses the link, nothing moves
+				failedTotalCost[e] = totalCost;
+				failedMaxLinkLoad[e] = baseMaxLinkLoad;
+				unroutedDemand[e] = 0;
+				return;
+			}
+			int u = tail[e];
+			int v = graph.target(e);
+			int weight = graph.weight(e);
+			long cost = totalCost;
+			int unrouted = 0;
+
+			tree.clearOverrides();
+			tree.override(u, v, ShortestPathTree.UNREACHABLE);
+			for (int k = affectedFirst[e]; k < affectedFirst[e + 1]; k++) {
+				int s = affectedSource[k];
+				int row = s * n;
+				tree.load(plan, s);
+				tree.update(u, v, weight, ShortestPathTree.UNREACHABLE);
+				int[] dem = demand[s];
+				int cut = tree.touchedCount();
+
+				// take the subtree's demand off its old paths
+				int count = 0;
+				for (int i = 0; i < cut; i++) {
+					int x = tree.touched(i);
+					keys[count++] = ((long) -plan.dist[row + x] << 32) | x;
+				}
+				Arrays.sort(keys, 0, count);
+				for (int i = 0; i < count; i++) {
+					int x = (int) keys[i];
+					sub[x] += dem[x];
+					int p = plan.parent[row + x];
+					add(p, x, -sub[x]);
+					if (x != v) {
+						sub[p] += sub[x];
+					}
+				}
+				int moved = sub[v];
+				for (int y = u; y != s; y = plan.parent[row + y]) {
+					add(plan.parent[row + y], y, -moved);
+				}
+				for (int i = 0; i < count; i++) {
+					sub[(int) keys[i]] = 0;
+				}
+
+				// cost change, and demand that lost its only path
+				count = 0;
+				for (int i = 0; i < cut; i++) {
+					int x = tree.touched(i);
+					if (tree.dist[x] == ShortestPathTree.UNREACHABLE) {
+						cost -= (long) dem[x] * plan.dist[row + x];
+						unrouted += dem[x];
+					} else {
+						cost += (long) dem[x]
+								* (tree.dist[x] - plan.dist[row + x]);
+						keys[count++] = ((long) -tree.dist[x] << 32) | x;
+					}
+				}
+
+				// put it on the new paths, which leave the subtree through
+				// unchanged vertices
+				Arrays.sort(keys, 0, count);
+				for (int i = 0; i < count; i++) {
+					int x = (int) keys[i];
+					sub[x] += dem[x];
+					int p = tree.parent[x];
+					add(p, x, sub[x]);
+					if (tree.isTouched(p)) {
+						sub[p] += sub[x];
+					} else {
+						for (int y = p; y != s; y = tree.parent[y]) {
+							add(tree.parent[y], y, sub[x]);
+						}
+					}
+				}
+				for (int i = 0; i < count; i++) {
+					sub[(int) keys[i]] = 0;
+				}
+			}
+
+			// busiest link: among the changed ones, or the busiest unchanged
+			int max = 0;
+			for (int key : byLoad) {
+				if (!changed(key)) {
+					max = flow[key / n][key % n];
+					break;
+				}
+			}
+			for (int i = 0; i < usedCount; i++) {
+				int slot = used[i];
+				int key = linkKey[slot];
+				max = Math.max(max, flow[key / n][key % n] + linkDelta[slot]);
+				linkKey[slot] = EMPTY;
+				linkDelta[slot] = 0;
+			}
+			usedCount = 0;
+
+			failedTotalCost[e] = Math.toIntExact(cost);
+			failedMaxLinkLoad[e] = max;
+			unroutedDemand[e] = unrouted;
+		}
+
+		private void add(int from, int to, int amount) {
+			int key = from * n + to;
+			int slot = find(key);
+			if (linkKey[slot] == EMPTY) {
+				linkKey[slot] = key;
+				used[usedCount++] = slot;
+			}
+			linkDelta[slot] += amount;
+			if (2 * usedCount > linkKey.length) {
+				grow();
+			}
+		}
+
+		private boolean changed(int key) {
+			return linkKey[find(key)] == key;
+		}
+
+		/*
+		 * slot holding key, or the empty slot it would go to
+		 */
+		private int find(int key) {
+			int h = key * 0x9E3779B9;
+			int mask = linkKey.length - 1;
+			int slot = (h ^ (h >>> 16)) & mask;
+			while (linkKey[slot] != EMPTY && linkKey[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		/*
+		 * double the table and put the used slots back in
+		 */
+		private void grow() {
+			int[] oldKey = linkKey;
+			int[] oldDelta = linkDelta;
+			int[] oldUsed = used;
+			int count = usedCount;
+			linkKey = emptyTable(2 * oldKey.length);
+			linkDelta = new int[linkKey.length];
+			used = new int[linkKey.length];
+			usedCount = 0;
+			for (int i = 0; i < count; i++) {
+				int key = oldKey[oldUsed[i]];
+				int slot = find(key);
+				linkKey[slot] = key;
+				linkDelta[slot] = oldDelta[oldUsed[i]];
+				used[usedCount++] = slot;
+			}
+		}
+	}
+
+	private static int[] emptyTable(int size) {
+		int[] table = new int[size];
+		Arrays.fill(table, EMPTY);
+		return table;
+	}
+
+	@SuppressWarnings("serial")
+	private class FailureTask extends RecursiveAction {
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		FailureTask(int lo, int hi, int grain) {
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new FailureTask(lo, mid, grain), new FailureTask(mid,
+						hi, grain));
+				return;
+			}
+			Worker worker = new Worker();
+			for (int e = lo; e < hi; e++) {
+				worker.fail(e);
+			}
+		}
+	}
+}
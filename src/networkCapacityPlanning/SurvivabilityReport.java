@@ -0,0 +1,98 @@
+package networkCapacityPlanning;
+
+/**
+ * Outcome of failing every link of a network once: for failure f, link
+ * getFrom(f)->getTo(f) is down and the demand is rerouted on the remaining
+ * links.
+ *
+ * @author LiP
+ *
+ */
+public class SurvivabilityReport {
+
+	private final int baseTotalCost;
+	private final int baseMaxLinkLoad;
+	private final int[] from;
+	private final int[] to;
+	private final int[] totalCost;
+	private final int[] maxLinkLoad;
+	private final int[] unroutedDemand;
+
+	SurvivabilityReport(int baseTotalCost, int baseMaxLinkLoad, int[] from,
+			int[] to, int[] totalCost, int[] maxLinkLoad, int[] unroutedDemand) {
+		this.baseTotalCost = baseTotalCost;
+		this.baseMaxLinkLoad = baseMaxLinkLoad;
+		this.from = from;
+		this.to = to;
+		this.totalCost = totalCost;
+		this.maxLinkLoad = maxLinkLoad;
+		this.unroutedDemand = unroutedDemand;
+	}
+
+	/*
+	 * getters
+	 */
+	public int getBaseTotalCost() {
+		return baseTotalCost;
+	}
+
+	public int getBaseMaxLinkLoad() {
+		return baseMaxLinkLoad;
+	}
+
+	public int getFailureCount() {
+		return from.length;
+	}
+
+	public int getFrom(int f) {
+		return from[f];
+	}
+
+	public int getTo(int f) {
+		return to[f];
+	}
+
+	public int getTotalCost(int f) {
+		return totalCost[f];
+	}
+
+	public int getMaxLinkLoad(int f) {
+		return maxLinkLoad[f];
+	}
+
+	/**
+	 * @param f
+	 *            failure index
+	 * @return demand left without any path when the link is down
+	 */
+	public int getUnroutedDemand(int f) {
+		return unroutedDemand[f];
+	}
+
+	/**
+	 * @return index of the failure with the highest total cost
+	 */
+	public int worstFailure() {
+		int worst = 0;
+		for (int f = 1; f < totalCost.length; f++) {
+			if (totalCost[f] > totalCost[worst]) {
+				worst = f;
+			}
+		}
+		return worst;
+	}
+
+	/**
+	 * survivability report, one line per failure
+	 */
+	public void print() {
+		System.out.println("No failure: total cost " + baseTotalCost
+				+ ", max link load " + baseMaxLinkLoad);
+		for (int f = 0; f < from.length; f++) {
+			System.out.format(
+					"Link %3d->%3d down: total cost %d, max link load %d, unrouted demand %d%n",
+					from[f], to[f], totalCost[f], maxLinkLoad[f],
+					unroutedDemand[f]);
+		}
+	}
+}
@@ -0,0 +1,202 @@
+package networkCapacityPlanning;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Local search over the placement of cheap links. A move swaps the unit costs
+ * of two outgoing links i->a and i->b of the same node with unitCost[i][a] <
+ * unitCost[i][b], so every node keeps its number of low cost links. The change
+ * of total cost of a move is evaluated incrementally: only the shortest path
+ * trees the two re-priced links can affect are repaired, on private copies,
+ * with DynamicRouting. All moves of an iteration are evaluated in parallel,
+ * the best improving one is applied through NetworkDesign.updateUnitCost(),
+ * and the search stops when no move improves.
+ *
+ * @author LiP
+ *
+ */
+public class TopologyOptimizer {
+
+	private final NetworkDesign design;
+	private long evaluatedMoves;
+
+	/**
+	 * @param design
+	 *            network with a current routing plan and flow and total cost
+	 *            computed from it
+	 */
+	public TopologyOptimizer(NetworkDesign design) {
+		this.design = design;
+	}
+
+	public long getEvaluatedMoves() {
+		return evaluatedMoves;
+	}
+
+	/**
+	 * improve the design by best improvement local search
+	 *
+	 * @param maxIterations
+	 *            maximum number of moves to apply
+	 * @return number of moves applied
+	 */
+	public int optimize(int maxIterations) {
+		int applied = 0;
+		while (applied < maxIterations) {
+			RoutingPlan plan = design.getRoutingPlan();
+			int[][] unitCost = design.getUnitCost();
+			int n = design.getNumberOfNodes();
+
+			// candidate moves
+			int count = 0;
+			for (int i = 0; i < n; i++) {
+				for (int a = 0; a < n; a++) {
+					for (int b = 0; b < n; b++) {
+						if (a != i && b != i && unitCost[i][a] < unitCost[i][b]) {
+							count++;
+						}
+					}
+				}
+			}
+			if (count == 0) {
+				break;
+			}
+			int[] node = new int[count];
+			int[] cheap = new int[count];
+			int[] dear = new int[count];
+			int m = 0;
+			for (int i = 0; i < n; i++) {
+				for (int a = 0; a < n; a++) {
+					for (int b = 0; b < n; b++) {
+						if (a != i && b != i && unitCost[i][a] < unitCost[i][b]) {
+							node[m] = i;
+							cheap[m] = a;
+							dear[m] = b;
+							m++;
+						}
+					}
+				}
+			}
+
+			int[] delta = new int[count];
+			int parallelism = design.getParallelism();
+			if (parallelism == 1) {
+				new MoveTask(plan, design.getTrafficeDemand(), unitCost, node,
+						cheap, dear, delta, 0, count, count).compute();
+			} else {
+				int grain = Math.max(1, count / (4 * parallelism));
+				MoveTask task = new MoveTask(plan, design.getTrafficeDemand(),
+						unitCost, node, cheap, dear, delta, 0, count, grain);
+				ForkJoinPool pool = new ForkJoinPool(parallelism);
+				try {
+					pool.invoke(task);
+				} finally {
+					pool.shutdown();
+				}
+			}
+			evaluatedMoves += count;
+
+			// best improving move, lowest index on ties
+			int best = -1;
+			for (int k = 0; k < count; k++) {
+				if (delta[k] < 0 && (best == -1 || delta[k] < delta[best])) {
+					best = k;
+				}
+			}
+			if (best == -1) {
+				break;
+			}
+			int low = unitCost[node[best]][cheap[best]];
+			int high = unitCost[node[best]][dear[best]];
+			design.updateUnitCost(node[best], cheap[best], high);
+			design.updateUnitCost(node[best], dear[best], low);
+			applied++;
+		}
+		return applied;
+	}
+
+	/*
+	 * change of total cost of a move, on a private copy of every affected tree
+	 */
+	private static int evaluate(RoutingPlan plan, int[][] demand,
+			DynamicRouting tree, int i, int a, int b, int low, int high) {
+		int n = plan.V();
+		int delta = 0;
+		for (int s = 0; s < n; s++) {
+			int row = s * n;
+			if (!DynamicRouting.isAffected(plan.dist, plan.parent, row, s, i,
+					a, low, high)
+					&& !DynamicRouting.isAffected(plan.dist, plan.parent, row,
+							s, i, b, high, low)) {
+				continue;
+			}
+			tree.load(plan, s);
+			tree.clearOverrides();
+			tree.override(i, a, high);
+			tree.update(i, a, low, high);
+			tree.override(i, b, low);
+			tree.update(i, b, high, low);
+
+			int[] dem = demand[s];
+			for (int t = 0; t < n; t++) {
+				int before = plan.dist[row + t];
+				int after = tree.dist[t];
+				if (before != ShortestPathTree.UNREACHABLE) {
+					delta -= dem[t] * before;
+				}
+				if (after != ShortestPathTree.UNREACHABLE) {
+					delta += dem[t] * after;
+				}
+			}
+		}
+		return delta;
+	}
+
+	@SuppressWarnings("serial")
+	private static class MoveTask extends RecursiveAction {
+		private final RoutingPlan plan;
+		private final int[][] demand;
+		private final int[][] unitCost;
+		private final int[] node;
+		private final int[] cheap;
+		private final int[] dear;
+		private final int[] delta;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		MoveTask(RoutingPlan plan, int[][] demand, int[][] unitCost,
+				int[] node, int[] cheap, int[] dear, int[] delta, int lo,
+				int hi, int grain) {
+			this.plan = plan;
+			this.demand = demand;
+			this.unitCost = unitCost;
+			this.node = node;
+			this.cheap = cheap;
+			this.dear = dear;
+			this.delta = delta;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new MoveTask(plan, demand, unitCost, node, cheap,
+						dear, delta, lo, mid, grain), new MoveTask(plan,
+						demand, unitCost, node, cheap, dear, delta, mid, hi,
+						grain));
+				return;
+			}
+			DynamicRouting tree = new DynamicRouting(plan.getGraph());
+			for (int k = lo; k < hi; k++) {
+				int i = node[k];
+				delta[k] = evaluate(plan, demand, tree, i, cheap[k], dear[k],
+						unitCost[i][cheap[k]], unitCost[i][dear[k]]);
+			}
+		}
+	}
+}
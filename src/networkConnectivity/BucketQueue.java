@@ -0,0 +1,114 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * Max priority queue over the items 0, ..., n - 1 with non negative integer
+ * keys that only increase, as needed by maximum adjacency orderings. Every key
+ * has a bucket, a doubly linked list kept in int arrays, and a pointer tracks
+ * the highest non empty bucket. The pointer only moves down while extracting
+ * and only as far as increases moved it up, so a sequence of operations costs
+ * O(n + sum of the increases).
+ *
+ * @author LiP
+ *
+ */
+class BucketQueue {
+
+	private static final int ABSENT = -1;
+
+	private final int[] key;
+	private final boolean[] queued;
+	private final int[] next;
+	private final int[] prev;
+	private int[] head;
+	private int max;
+	private int size;
+
+	BucketQueue(int n) {
+		key = new int[n];
+		queued = new boolean[n];
+		next = new int[n];
+		prev = new int[n];
+		head = new int[16];
+		Arrays.fill(head, ABSENT);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	boolean contains(int v) {
+		return queued[v];
+	}
+
+	/*
+	 * current key of a queued item, final key of a removed one
+	 */
+	int key(int v) {
+		return key[v];
+	}
+
+	void insert(int v, int k) {
+		key[v] = k;
+		queued[v] = true;
+		link(v);
+		size++;
+	}
+
+	void increase(int v, int by) {
+		unlink(v);
+		key[v] += by;
+		link(v);
+	}
+
+	void remove(int v) {
+		unlink(v);
+		queued[v] = false;
+		size--;
+		if (size == 0) {
+			max = 0;
+		}
+	}
+
+	/**
+	 * @return an item with the highest key, removed from the queue
+	 */
+	int extractMax() {
+		while (head[max] == ABSENT) {
+			max--;
+		}
+		int v = head[max];
+		remove(v);
+		return v;
+	}
+
+	private void link(int v) {
+		int k = key[v];
+		if (k >= head.length) {
+			int length = head.length;
+			head = Arrays.copyOf(head, Math.max(2 * length, k + 1));
+			Arrays.fill(head, length, head.length, ABSENT);
+		}
+		next[v] = head[k];
+		prev[v] = ABSENT;
+		if (head[k] != ABSENT) {
+			prev[head[k]] = v;
+		}
+		head[k] = v;
+		if (k > max) {
+			max = k;
+		}
+	}
+
+	private void unlink(int v) {
+		if (prev[v] == ABSENT) {
+			head[key[v]] = next[v];
+		} else {
+			next[prev[v]] = next[v];
+		}
+		if (next[v] != ABSENT) {
+			prev[next[v]] = prev[v];
+		}
+	}
+}
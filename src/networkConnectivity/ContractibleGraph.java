@@ -0,0 +1,279 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * An UndirectedGraph under vertex contraction, the working state of the
+ * contraction based min cut algorithms. Parallel edges are one weighted
+ * adjacency entry, and vertices are contracted by union-find, merging their
+ * adjacency rows, so contraction never creates edge objects. Stale entries of
+ * a merged row are resolved and summed the next time the row is scanned.
+ *
+ * A contracted vertex is named by its representative, one of the original
+ * vertices it contains.
+ *
+ * @author LiP
+ *
+ */
+class ContractibleGraph {
+
+	private final int n;
+
+	// union-find over the original vertices
+	private final int[] root;
+	// adjacency row of every representative
+	private final int[][] rowVertex;
+	private final int[][] rowWeight;
+	private final int[] rowLength;
+	// members of every representative as a linked list
+	private final int[] firstMember;
+	private final int[] lastMember;
+	private final int[] nextMember;
+	// representatives still alive
+	private final int[] alive;
+	private final int[] aliveIndex;
+	private int aliveCount;
+
+	// row compaction workspace
+	private final int[] slot;
+	private final int[] slotStamp;
+	private int stamp;
+
+	// last maximum adjacency ordering
+	private final BucketQueue queue;
+	private final int[] order;
+	private int ordered;
+	// pairs proven safe to contract by the last ordering
+	private int[] pairFrom = new int[16];
+	private int[] pairTo = new int[16];
+	private int pairs;
+
+	ContractibleGraph(UndirectedGraph graph) {
+		n = graph.V();
+		root = new int[n];
+		rowVertex = new int[n][];
+		rowWeight = new int[n][];
+		rowLength = new int[n];
+		firstMember = new int[n];
+		lastMember = new int[n];
+		nextMember = new int[n];
+		alive = new int[n];
+		aliveIndex = new int[n];
+		slot = new int[n];
+		slotStamp = new int[n];
+		queue = new BucketQueue(n);
+		order = new int[n];
+		for (int v = 0; v < n; v++) {
+			root[v] = v;
+			int length = graph.lastEdge(v) - graph.firstEdge(v);
+			rowVertex[v] = new int[Math.max(1, length)];
+			rowWeight[v] = new int[Math.max(1, length)];
+			for (int i = 0; i < length; i++) {
+				rowVertex[v][i] = graph.neighbor(graph.firstEdge(v) + i);
+				rowWeight[v][i] = graph.weight(graph.firstEdge(v) + i);
+			}
+			rowLength[v] = length;
+			firstMember[v] = v;
+			lastMember[v] = v;
+			nextMember[v] = -1;
+			alive[v] = v;
+			aliveIndex[v] = v;
+		}
+		aliveCount = n;
+	}
+
+	/*
+	 * contracted vertices
+	 */
+	int aliveCount() {
+		return aliveCount;
+	}
+
+	int alive(int i) {
+		return alive[i];
+	}
+
+	int find(int v) {
+		while (root[v] != v) {
+			root[v] = root[root[v]];
+			v = root[v];
+		}
+		return v;
+	}
+
+	/*
+	 * adjacency row of a representative, exact after compact(r)
+	 */
+	int rowLength(int r) {
+		return rowLength[r];
+	}
+
+	int rowVertex(int r, int i) {
+		return rowVertex[r][i];
+	}
+
+	int rowWeight(int r, int i) {
+		return rowWeight[r][i];
+	}
+
+	/**
+	 * @return original vertices contracted into representative r
+	 */
+	int[] members(int r) {
+		int count = 0;
+		for (int x = firstMember[r]; x != -1; x = nextMember[x]) {
+			count++;
+		}
+		int[] result = new int[count];
+		count = 0;
+		for (int x = firstMember[r]; x != -1; x = nextMember[x]) {
+			result[count++] = x;
+		}
+		return result;
+	}
+
+	/**
+	 * resolve the entries of a row to representatives, dropping self loops
+	 * and summing entries of the same neighbor
+	 */
+	void compact(int r) {
+		stamp++;
+		int[] vertex = rowVertex[r];
+		int[] weight = rowWeight[r];
+		int length = 0;
+		for (int i = 0; i < rowLength[r]; i++) {
+			int x = find(vertex[i]);
+			if (x == r) {
+				continue;
+			}
+			if (slotStamp[x] == stamp) {
+				weight[slot[x]] += weight[i];
+			} else {
+				slotStamp[x] = stamp;
+				slot[x] = length;
+				vertex[length] = x;
+				weight[length] = weight[i];
+				length++;
+			}
+		}
+		rowLength[r] = length;
+	}
+
+	/**
+	 * maximum adjacency ordering of the contracted graph from its first alive
+	 * vertex. Every edge x-y whose count q(e) reaches the threshold when it is
+	 * scanned has lambda(x, y) >= threshold and is recorded as a pair for
+	 * contractRecorded().
+	 *
+	 * @param threshold
+	 *            count from which pairs are recorded
+	 * @return false if the ordering stopped at a vertex not adjacent to the
+	 *         ordered ones, which then form a component
+	 */
+	boolean order(int threshold) {
+		for (int i = 0; i < aliveCount; i++) {
+			queue.insert(alive[i], 0);
+		}
+		pairs = 0;
+		ordered = 0;
+		int v = alive[0];
+		queue.remove(v);
+		while (true) {
+			order[ordered++] = v;
+			compact(v);
+			for (int i = 0; i < rowLength[v]; i++) {
+				int x = rowVertex[v][i];
+				if (queue.contains(x)) {
+					queue.increase(x, rowWeight[v][i]);
+					if (queue.key(x) >= threshold) {
+						addPair(v, x);
+					}
+				}
+			}
+			if (queue.isEmpty()) {
+				return true;
+			}
+			v = queue.extractMax();
+			if (queue.key(v) == 0) {
+				while (!queue.isEmpty()) {
+					queue.extractMax();
+				}
+				return false;
+			}
+		}
+	}
+
+	/*
+	 * result of the last ordering
+	 */
+	int orderedCount() {
+		return ordered;
+	}
+
+	int ordered(int i) {
+		return order[i];
+	}
+
+	/**
+	 * @return edges from the last ordered vertex to the others, lambda of the
+	 *         last two ordered vertices
+	 */
+	int lastAttachment() {
+		return queue.key(order[ordered - 1]);
+	}
+
+	void addPair(int from, int to) {
+		if (pairs == pairFrom.length) {
+			pairFrom = Arrays.copyOf(pairFrom, 2 * pairs);
+			pairTo = Arrays.copyOf(pairTo, 2 * pairs);
+		}
+		pairFrom[pairs] = from;
+		pairTo[pairs] = to;
+		pairs++;
+	}
+
+	void contractRecorded() {
+		for (int i = 0; i < pairs; i++) {
+			union(pairFrom[i], pairTo[i]);
+		}
+		pairs = 0;
+	}
+
+	/**
+	 * contract two vertices, the longer row absorbs the shorter one
+	 */
+	void union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a == b) {
+			return;
+		}
+		if (rowLength[a] < rowLength[b]) {
+			int swap = a;
+			a = b;
+			b = swap;
+		}
+		root[b] = a;
+
+		int length = rowLength[a] + rowLength[b];
+		if (length > rowVertex[a].length) {
+			rowVertex[a] = Arrays.copyOf(rowVertex[a], length);
+			rowWeight[a] = Arrays.copyOf(rowWeight[a], length);
+		}
+		System.arraycopy(rowVertex[b], 0, rowVertex[a], rowLength[a],
+				rowLength[b]);
+		System.arraycopy(rowWeight[b], 0, rowWeight[a], rowLength[a],
+				rowLength[b]);
+		rowLength[a] = length;
+		rowVertex[b] = null;
+		rowWeight[b] = null;
+
+		nextMember[lastMember[a]] = firstMember[b];
+		lastMember[a] = lastMember[b];
+
+		int i = aliveIndex[b];
+		aliveCount--;
+		alive[i] = alive[aliveCount];
+		aliveIndex[alive[i]] = i;
+	}
+}
@@ -0,0 +1,240 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * The edges of a graph that cross some minimum cut, found in one contraction
+ * pass instead of one min cut computation per edge. An edge is critical, i.e.
+ * its removal lowers the minimum cut lambda, exactly when it crosses a cut of
+ * value lambda.
+ *
+ * The pass contracts the graph like NIMinCut, but only along pairs no minimum
+ * cut separates: edges whose count reaches lambda + 1 in an MA ordering, and
+ * the last two vertices s, t of an ordering when their lambda(s, t) exceeds
+ * lambda. Every minimum cut thus survives intact until the first phase whose
+ * s and t it separates, and there it is a minimum s-t cut. When lambda(s, t)
+ * equals lambda, the minimum s-t cuts of the contracted graph are read off a
+ * maximum flow, Picard-Queyranne style; these chains of s-t cut structures
+ * along the contraction order are what a cactus representation of all
+ * minimum cuts is assembled from, and they are used here directly to mark
+ * the crossing edges. s and t are contracted afterwards either way.
+ *
+ * @author LiP
+ *
+ */
+public class CriticalEdges {
+
+	private final UndirectedGraph graph;
+	private final int minCut;
+	// by adjacency slot of the graph, both slots of an edge alike
+	private final boolean[] critical;
+
+	public CriticalEdges(UndirectedGraph graph) {
+		this.graph = graph;
+		int n = graph.V();
+		critical = new boolean[n == 0 ? 0 : graph.lastEdge(n - 1)];
+		minCut = new NIMinCut().minCut(graph).getValue();
+		if (n < 2 || minCut == 0) {
+			// a cut of value zero is crossed by no edge
+			return;
+		}
+
+		ContractibleGraph contracted = new ContractibleGraph(graph);
+		int[] index = new int[n];
+		while (contracted.aliveCount() > 1) {
+			contracted.order(minCut + 1);
+			int count = contracted.orderedCount();
+			int s = contracted.ordered(count - 2);
+			int t = contracted.ordered(count - 1);
+			if (contracted.lastAttachment() == minCut) {
+				markMinimumCuts(contracted, s, t, index);
+			}
+			contracted.addPair(s, t);
+			contracted.contractRecorded();
+		}
+	}
+
+	/*
+	 * getters
+	 */
+	public int getMinCut() {
+		return minCut;
+	}
+
+	/**
+	 * @param e
+	 *            adjacency slot of the graph
+	 * @return true if the edges of the slot cross some minimum cut
+	 */
+	public boolean isCritical(int e) {
+		return critical[e];
+	}
+
+	/**
+	 * @return number of critical edges, parallel edges counted
+	 */
+	public int count() {
+		int result = 0;
+		for (int e = 0; e < critical.length; e++) {
+			if (critical[e]) {
+				result += graph.weight(e);
+			}
+		}
+		// every edge has two slots
+		return result / 2;
+	}
+
+	/*
+	 * mark the edges crossing some minimum s-t cut of the contracted graph
+	 */
+	private void markMinimumCuts(ContractibleGraph contracted, int s, int t,
+			int[] index) {
+		int k = contracted.aliveCount();
+		int[] label = new int[k];
+		int edges = 0;
+		for (int i = 0; i < k; i++) {
+			int r = contracted.alive(i);
+			label[i] = r;
+			index[r] = i;
+			contracted.compact(r);
+			edges += contracted.rowLength(r);
+		}
+		int[] a = new int[edges];
+		int[] b = new int[edges];
+		int[] w = new int[edges];
+		edges = 0;
+		for (int i = 0; i < k; i++) {
+			int r = label[i];
+			for (int j = 0; j < contracted.rowLength(r); j++) {
+				int x = contracted.rowVertex(r, j);
+				if (r < x) {
+					a[edges] = i;
+					b[edges] = index[x];
+					w[edges++] = contracted.rowWeight(r, j);
+				}
+			}
+		}
+		UndirectedGraph quotient = UndirectedGraph.fromEdges(k, label, a, b, w,
+				edges);
+		DinicMaxFlow maxFlow = new DinicMaxFlow(quotient);
+		int source = index[s];
+		int sink = index[t];
+		maxFlow.maxFlow(source, sink);
+
+		// the minimum s-t cuts are the residual closed sets containing s and
+		// not t; x-y with x->y saturated crosses one iff x cannot reach y, x
+		// cannot reach t and s cannot reach y
+		boolean[] reachesSink = reachesSink(maxFlow, sink);
+		int[] component = components(maxFlow);
+		for (int u = 0; u < graph.V(); u++) {
+			for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+				int v = graph.neighbor(e);
+				int x = index[contracted.find(u)];
+				int y = index[contracted.find(v)];
+				if (u > v || x == y || component[x] == component[y]) {
+					continue;
+				}
+				int slot = quotient.findEdge(x, y);
+				if (maxFlow.residual(slot) > 0) {
+					int swap = x;
+					x = y;
+					y = swap;
+				}
+				if (!reachesSink[x] && !maxFlow.onSourceSide(y)) {
+					critical[e] = true;
+					critical[graph.findEdge(v, u)] = true;
+				}
+			}
+		}
+	}
+
+	/*
+	 * vertices that can reach the sink in the residual graph
+	 */
+	private static boolean[] reachesSink(DinicMaxFlow maxFlow, int sink) {
+		UndirectedGraph g = maxFlow.getGraph();
+		boolean[] result = new boolean[g.V()];
+		int[] queue = new int[g.V()];
+		result[sink] = true;
+		queue[0] = sink;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int y = queue[head++];
+			for (int e = g.firstEdge(y); e < g.lastEdge(y); e++) {
+				int x = g.neighbor(e);
+				if (!result[x] && maxFlow.residual(maxFlow.reverse(e)) > 0) {
+					result[x] = true;
+					queue[tail++] = x;
+				}
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * strongly connected components of the residual graph, Tarjan's algorithm
+	 * with explicit stacks
+	 */
+	private static int[] components(DinicMaxFlow maxFlow) {
+		UndirectedGraph g = maxFlow.getGraph();
+		int n = g.V();
+		int[] component = new int[n];
+		int[] number = new int[n];
+		int[] low = new int[n];
+		int[] edge = new int[n];
+		int[] stack = new int[n];
+		int[] call = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(number, -1);
+		int counter = 0;
+		int components = 0;
+		int top = 0;
+		for (int root = 0; root < n; root++) {
+			if (number[root] != -1) {
+				continue;
+			}
+			int depth = 0;
+			call[depth++] = root;
+			number[root] = low[root] = counter++;
+			edge[root] = g.firstEdge(root);
+			stack[top++] = root;
+			onStack[root] = true;
+			while (depth > 0) {
+				int v = call[depth - 1];
+				if (edge[v] < g.lastEdge(v)) {
+					int e = edge[v]++;
+					if (maxFlow.residual(e) == 0) {
+						continue;
+					}
+					int w = g.neighbor(e);
+					if (number[w] == -1) {
+						number[w] = low[w] = counter++;
+						edge[w] = g.firstEdge(w);
+						stack[top++] = w;
+						onStack[w] = true;
+						call[depth++] = w;
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], number[w]);
+					}
+					continue;
+				}
+				depth--;
+				if (depth > 0) {
+					int p = call[depth - 1];
+					low[p] = Math.min(low[p], low[v]);
+				}
+				if (low[v] == number[v]) {
+					int x;
+					do {
+						x = stack[--top];
+						onStack[x] = false;
+						component[x] = components;
+					} while (x != v);
+					components++;
+				}
+			}
+		}
+		return component;
+	}
+}
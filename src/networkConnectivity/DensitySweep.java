@@ -0,0 +1,352 @@
+package networkConnectivity;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The edge density experiment of Project2 as independent cells: cell c is
+ * experiment c % experiments of edge count lower + (c / experiments) *
+ * increment. Every cell draws its graph from its own SplittableRandom, seeded
+ * from the sweep seed and the cell index only, so the results do not depend
+ * on the number of threads or on the order the cells run in. The cells run on
+ * a ForkJoinPool.
+ *
+ * Every finished cell is appended to a checkpoint file, one line per cell
+ * under a header that records the parameters. A run given a checkpoint with
+ * the same header skips the cells it holds, so an interrupted sweep resumes
+ * where it stopped. Every line ends with an ok field, so a line cut short by
+ * the interruption, even inside its last number, is dropped.
+ *
+ * @author LiP
+ *
+ */
+public class DensitySweep {
+
+	// last field of every complete cell line
+	private static final String END_OF_RECORD = "ok";
+
+	private final int vertices;
+	private final int lowerEdges;
+	private final int upperEdges;
+	private final int incrementEdges;
+	private final int experiments;
+	private final long seed;
+	private final boolean kernelize;
+	// success probability of the Karger-Stein cross check, 0 for none
+	private final double crossCheck;
+
+	// results, indexed by cell
+	private final int[] minCut;
+	private final int[] criticalEdges;
+	private final boolean[] missed;
+	private final double[] vertexRatio;
+	private final double[] edgeRatio;
+	private final boolean[] done;
+	private int resumed;
+
+	private PrintWriter checkpoint;
+
+	/**
+	 * @param vertices
+	 *            number of vertices of every graph
+	 * @param lowerEdges
+	 *            smallest edge count
+	 * @param upperEdges
+	 *            largest edge count
+	 * @param incrementEdges
+	 *            step between edge counts
+	 * @param experiments
+	 *            graphs per edge count
+	 * @param seed
+	 *            seed of the whole sweep
+	 * @param kernelize
+	 *            cut the Padberg-Rinaldi kernel of every graph
+	 * @param crossCheck
+	 *            success probability of a Karger-Stein cut of every graph to
+	 *            compare with, 0 for none
+	 */
+	public DensitySweep(int vertices, int lowerEdges, int upperEdges,
+			int incrementEdges, int experiments, long seed, boolean kernelize,
+			double crossCheck) {
+		this.vertices = vertices;
+		this.lowerEdges = lowerEdges;
+		this.upperEdges = upperEdges;
+		this.incrementEdges = incrementEdges;
+		this.experiments = experiments;
+		this.seed = seed;
+		this.kernelize = kernelize;
+		this.crossCheck = crossCheck;
+
+		int cells = getEdgeCounts() * experiments;
+		minCut = new int[cells];
+		criticalEdges = new int[cells];
+		missed = new boolean[cells];
+		vertexRatio = new double[cells];
+		edgeRatio = new double[cells];
+		done = new boolean[cells];
+	}
+
+	/**
+	 * run every cell the checkpoint does not hold yet
+	 *
+	 * @param checkpointFile
+	 *            checkpoint path, created if missing
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 */
+	public void run(String checkpointFile, int parallelism) throws IOException {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		resume(checkpointFile);
+
+		int cells = done.length;
+		int[] todo = new int[cells];
+		int count = 0;
+		for (int c = 0; c < cells; c++) {
+			if (!done[c]) {
+				todo[count++] = c;
+			}
+		}
+
+		checkpoint = new PrintWriter(new FileWriter(checkpointFile, true));
+		try {
+			CellTask task = new CellTask(todo, 0, count, parallelism == 1 ? count
+					: 1);
+			if (parallelism == 1) {
+				task.compute();
+			} else {
+				ForkJoinPool pool = new ForkJoinPool(parallelism);
+				try {
+					pool.invoke(task);
+				} finally {
+					pool.shutdown();
+				}
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			checkpoint.close();
+		}
+	}
+
+	/*
+	 * load the cells of a checkpoint with a matching header, and rewrite it
+	 * with the complete lines only
+	 */
+	private void resume(String checkpointFile) throws IOException {
+		String header = header();
+		StringBuilder kept = new StringBuilder(header).append('\n');
+		File file = new File(checkpointFile);
+		if (file.exists()) {
+			BufferedReader reader = new BufferedReader(new FileReader(file));
+			try {
+				String line = reader.readLine();
+				if (header.equals(line)) {
+					while ((line = reader.readLine()) != null) {
+						if (load(line)) {
+							kept.append(line).append('\n');
+						}
+					}
+				} else {
+					System.out.println("Checkpoint " + checkpointFile
+							+ " belongs to another sweep, starting over");
+				}
+			} finally {
+				reader.close();
+			}
+		}
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(kept.toString());
+		} finally {
+			writer.close();
+		}
+	}
+
+	private String header() {
+		return "# vertices " + vertices + " edges " + lowerEdges + ".."
+				+ upperEdges + " step " + incrementEdges + " experiments "
+				+ experiments + " seed " + seed + " kernel " + kernelize
+				+ " crosscheck " + crossCheck;
+	}
+
+	/*
+	 * one cell line:
+	 * cell,minCut,criticalEdges,missed,vertexRatio,edgeRatio,ok
+	 */
+	private boolean load(String line) {
+		String[] field = line.split(",");
+		if (field.length != 7 || !field[6].equals(END_OF_RECORD)) {
+			return false;
+		}
+		try {
+			int c = Integer.parseInt(field[0]);
+			if (c < 0 || c >= done.length || done[c]) {
+				return false;
+			}
+			minCut[c] = Integer.parseInt(field[1]);
+			criticalEdges[c] = Integer.parseInt(field[2]);
+			missed[c] = Boolean.parseBoolean(field[3]);
+			vertexRatio[c] = Double.parseDouble(field[4]);
+			edgeRatio[c] = Double.parseDouble(field[5]);
+			done[c] = true;
+			resumed++;
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private synchronized void save(int c) {
+		checkpoint.println(c + "," + minCut[c] + "," + criticalEdges[c] + ","
+				+ missed[c] + "," + vertexRatio[c] + "," + edgeRatio[c] + ","
+				+ END_OF_RECORD);
+		checkpoint.flush();
+		if (checkpoint.checkError()) {
+			throw new UncheckedIOException(new IOException(
+					"cannot write the checkpoint"));
+		}
+	}
+
+	/*
+	 * seed of a cell: the SplitMix64 finalizer over the sweep seed and the
+	 * cell index, so neighboring cells get unrelated streams
+	 */
+	private long cellSeed(int c) {
+		long z = seed + (c + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private void runCell(int c) {
+		SplittableRandom random = new SplittableRandom(cellSeed(c));
+		int[][] edgeMatrix = NagamochiIbaraki.genEdgeMatrix(vertices,
+				getEdgeCount(c / experiments), random);
+		UndirectedGraph graph = UndirectedGraph.fromEdgeMatrix(edgeMatrix);
+		int cut;
+		if (kernelize) {
+			Kernel kernel = Kernel.reduce(graph);
+			cut = kernel.minCut(new NIMinCut()).getValue();
+			vertexRatio[c] = kernel.getVertexRatio();
+			edgeRatio[c] = kernel.getEdgeRatio();
+		} else {
+			cut = new NIMinCut().minCut(graph).getValue();
+		}
+		minCut[c] = cut;
+		if (crossCheck > 0) {
+			missed[c] = new KargerSteinMinCut(crossCheck, 1, random.nextLong())
+					.minCut(graph).getValue() != cut;
+		}
+		if (cut != 0) {
+			criticalEdges[c] = NagamochiIbaraki.findCriticalEdges(edgeMatrix,
+					cut);
+		}
+		done[c] = true;
+		save(c);
+	}
+
+	/*
+	 * getters
+	 */
+	public int getEdgeCounts() {
+		return (upperEdges - lowerEdges) / incrementEdges + 1;
+	}
+
+	public int getEdgeCount(int row) {
+		return lowerEdges + row * incrementEdges;
+	}
+
+	/**
+	 * @return number of cells taken from the checkpoint by the last run
+	 */
+	public int getResumed() {
+		return resumed;
+	}
+
+	public float getAverageMinCut(int row) {
+		int total = 0;
+		for (int c = row * experiments; c < (row + 1) * experiments; c++) {
+			total += minCut[c];
+		}
+		return (float) total / experiments;
+	}
+
+	public float getAverageCriticalEdges(int row) {
+		int total = 0;
+		for (int c = row * experiments; c < (row + 1) * experiments; c++) {
+			total += criticalEdges[c];
+		}
+		return (float) total / experiments;
+	}
+
+	/**
+	 * @return number of graphs whose minimum cut Karger-Stein missed
+	 */
+	public int getMissed() {
+		int result = 0;
+		for (boolean m : missed) {
+			if (m) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	public double getAverageVertexRatio() {
+		double total = 0;
+		for (double r : vertexRatio) {
+			total += r;
+		}
+		return total / vertexRatio.length;
+	}
+
+	public double getAverageEdgeRatio() {
+		double total = 0;
+		for (double r : edgeRatio) {
+			total += r;
+		}
+		return total / edgeRatio.length;
+	}
+
+	/*
+	 * runs cells todo[lo, hi)
+	 */
+	@SuppressWarnings("serial")
+	private class CellTask extends RecursiveAction {
+		private final int[] todo;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		CellTask(int[] todo, int lo, int hi, int grain) {
+			this.todo = todo;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new CellTask(todo, lo, mid, grain), new CellTask(todo,
+						mid, hi, grain));
+				return;
+			}
+			for (int i = lo; i < hi; i++) {
+				runCell(todo[i]);
+			}
+		}
+	}
+}
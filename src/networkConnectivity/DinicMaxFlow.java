@@ -0,0 +1,189 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * Dinic's maximum flow on an UndirectedGraph, every edge carrying its weight
+ * in either direction, so the flow value between s and t is the number of
+ * edge disjoint s-t paths, lambda(s, t). The flow lives in one int per
+ * adjacency slot, antisymmetric between the two slots of an edge, and the
+ * blocking flows are found with an iterative depth first search, so long
+ * paths cannot overflow the stack.
+ *
+ * An instance can run any number of flows on its graph but must not be shared
+ * between threads.
+ *
+ * @author LiP
+ *
+ */
+public class DinicMaxFlow {
+
+	private final UndirectedGraph graph;
+	private final int n;
+	// slot of the same edge in the row of its other endpoint
+	private final int[] reverse;
+	private final int[] flow;
+	private final int[] level;
+	// current arc of every vertex
+	private final int[] next;
+	private final int[] queue;
+	private final int[] path;
+
+	public DinicMaxFlow(UndirectedGraph graph) {
+		this.graph = graph;
+		this.n = graph.V();
+		int slots = n == 0 ? 0 : graph.lastEdge(n - 1);
+		reverse = new int[slots];
+		for (int v = 0; v < n; v++) {
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				reverse[e] = graph.findEdge(graph.neighbor(e), v);
+			}
+		}
+		flow = new int[slots];
+		level = new int[n];
+		next = new int[n];
+		queue = new int[n];
+		path = new int[n];
+	}
+
+	/**
+	 * second workspace over the same graph, for another thread
+	 * 
+	 * @param other
+	 *            instance to share the graph with
+	 */
+	public DinicMaxFlow(DinicMaxFlow other) {
+		this.graph = other.graph;
+		this.n = other.n;
+		this.reverse = other.reverse;
+		flow = new int[reverse.length];
+		level = new int[n];
+		next = new int[n];
+		queue = new int[n];
+		path = new int[n];
+	}
+
+	public UndirectedGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return lambda(s, t)
+	 */
+	public int maxFlow(int s, int t) {
+		return maxFlow(s, t, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * maximum flow from s to t, stopping as soon as it reaches a limit
+	 * 
+	 * @param s
+	 *            source
+	 * @param t
+	 *            sink, different from s
+	 * @param limit
+	 *            value at which to stop
+	 * @return min(lambda(s, t), limit)
+	 */
+	public int maxFlow(int s, int t, int limit) {
+		Arrays.fill(flow, 0);
+		int total = 0;
+		while (total < limit && levels(s, t)) {
+			total += blockingFlow(s, t, limit - total);
+		}
+		if (total >= limit) {
+			// leave the source side defined anyway
+			levels(s, t);
+		}
+		return total;
+	}
+
+	/**
+	 * @return true if v is reachable from the source in the residual graph of
+	 *         the last flow; after a maximum flow these vertices are the
+	 *         source side of a minimum s-t cut
+	 */
+	public boolean onSourceSide(int v) {
+		return level[v] != -1;
+	}
+
+	/*
+	 * residual graph of the last flow
+	 */
+	int residual(int e) {
+		return graph.weight(e) - flow[e];
+	}
+
+	int reverse(int e) {
+		return reverse[e];
+	}
+
+	/*
+	 * breadth first search over the residual graph from s
+	 */
+	private boolean levels(int s, int t) {
+		Arrays.fill(level, -1);
+		level[s] = 0;
+		queue[0] = s;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int w = graph.neighbor(e);
+				if (level[w] == -1 && residual(e) > 0) {
+					level[w] = level[v] + 1;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return level[t] != -1;
+	}
+
+	/*
+	 * augment along level graph paths until none is left or the limit is met
+	 */
+	private int blockingFlow(int s, int t, int limit) {
+		for (int v = 0; v < n; v++) {
+			next[v] = graph.firstEdge(v);
+		}
+		int total = 0;
+		int depth = 0;
+		int v = s;
+		while (total < limit) {
+			if (v == t) {
+				int amount = limit - total;
+				for (int i = 0; i < depth; i++) {
+					amount = Math.min(amount, residual(path[i]));
+				}
+				for (int i = 0; i < depth; i++) {
+					flow[path[i]] += amount;
+					flow[reverse[path[i]]] -= amount;
+				}
+				total += amount;
+				depth = 0;
+				v = s;
+				continue;
+			}
+			int e = next[v];
+			while (e < graph.lastEdge(v)
+					&& (residual(e) == 0 || level[graph.neighbor(e)] != level[v] + 1)) {
+				e++;
+			}
+			next[v] = e;
+			if (e < graph.lastEdge(v)) {
+				path[depth++] = e;
+				v = graph.neighbor(e);
+			} else if (v == s) {
+				break;
+			} else {
+				// dead end: retreat and never enter v again in this phase
+				level[v] = -1;
+				depth--;
+				v = graph.neighbor(reverse[path[depth]]);
+				next[v]++;
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,277 @@
+package networkConnectivity;
+
+/**
+ * Edge connectivity of a graph given by an edge matrix, kept up to date while
+ * single edges are added and removed. The structure holds the minimum cut
+ * lambda together with a certificate: a pool of cuts, whose values follow
+ * every change in O(1) each, plus the single vertex cuts given by the
+ * degrees.
+ *
+ * Adding an edge leaves every cut at most one larger, so lambda stays if some
+ * known cut of value lambda is not crossed by the edge; only when all of them
+ * are crossed is the minimum cut recomputed. Removing an edge makes every cut
+ * at most one smaller: if it crosses a known minimum cut, lambda drops by
+ * one; otherwise lambda drops exactly when the edge crossed some other
+ * minimum cut, i.e. when lambda(i, j) falls below lambda, which one max flow
+ * between its endpoints, stopped at lambda, decides without a recompute.
+ *
+ * A recompute runs the Nagamochi-Ibaraki phases on a ContractibleGraph but
+ * only contracts pairs that no minimum cut separates, so every phase ending
+ * in a minimum cut adds a different one to the pool.
+ *
+ * @author LiP
+ *
+ */
+public class DynamicConnectivity {
+
+	private static final int POOL_SIZE = 16;
+
+	private final int n;
+	private final int[][] edgeMatrix;
+	private final int[] degree;
+	private int lambda;
+
+	// known cuts and their current values
+	private final boolean[][] pool;
+	private final int[] poolValue;
+	private int poolSize;
+
+	private int recomputations;
+	private int flowChecks;
+
+	/**
+	 * @param edgeMatrix
+	 *            edge matrix of the initial graph, copied
+	 */
+	public DynamicConnectivity(int[][] edgeMatrix) {
+		n = edgeMatrix.length;
+		this.edgeMatrix = new int[n][];
+		degree = new int[n];
+		for (int i = 0; i < n; i++) {
+			this.edgeMatrix[i] = edgeMatrix[i].clone();
+		}
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				if (i != j) {
+					degree[i] += edgeMatrix[i][j];
+					degree[j] += edgeMatrix[i][j];
+				}
+			}
+		}
+		pool = new boolean[POOL_SIZE][n];
+		poolValue = new int[POOL_SIZE];
+		recompute();
+	}
+
+	/*
+	 * getters
+	 */
+	public int getMinCut() {
+		return lambda;
+	}
+
+	/**
+	 * @return number of full minimum cut computations, the first included
+	 */
+	public int getRecomputations() {
+		return recomputations;
+	}
+
+	/**
+	 * @return number of updates decided by a single max flow
+	 */
+	public int getFlowChecks() {
+		return flowChecks;
+	}
+
+	/**
+	 * @return a cut of value getMinCut(), its side holds vertex numbers
+	 */
+	public MinCut getCut() {
+		if (n < 2) {
+			return new MinCut(0, new int[0]);
+		}
+		for (int k = 0; k < poolSize; k++) {
+			if (poolValue[k] == lambda) {
+				int count = 0;
+				for (int v = 0; v < n; v++) {
+					if (pool[k][v]) {
+						count++;
+					}
+				}
+				int[] side = new int[count];
+				count = 0;
+				for (int v = 0; v < n; v++) {
+					if (pool[k][v]) {
+						side[count++] = v;
+					}
+				}
+				return new MinCut(lambda, side);
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			if (degree[v] == lambda) {
+				return new MinCut(lambda, new int[] { v });
+			}
+		}
+		throw new IllegalStateException("minimum cut is not certified");
+	}
+
+	/**
+	 * add one edge i-j
+	 */
+	public void addEdge(int i, int j) {
+		checkEdge(i, j);
+		edgeMatrix[i][j]++;
+		change(i, j, 1);
+		if (upperBound() > lambda) {
+			// every known minimum cut is crossed, lambda or lambda + 1
+			recompute();
+		}
+	}
+
+	/**
+	 * remove one edge i-j, counted in edgeMatrix[i][j] or edgeMatrix[j][i]
+	 */
+	public void removeEdge(int i, int j) {
+		checkEdge(i, j);
+		if (edgeMatrix[i][j] > 0) {
+			edgeMatrix[i][j]--;
+		} else if (edgeMatrix[j][i] > 0) {
+			edgeMatrix[j][i]--;
+		} else {
+			throw new IllegalArgumentException("no edge " + i + "-" + j);
+		}
+		change(i, j, -1);
+		if (lambda == 0 || upperBound() == lambda - 1) {
+			lambda = Math.min(lambda, upperBound());
+			return;
+		}
+
+		// cuts not separating i and j kept their value, so lambda falls iff
+		// lambda(i, j) does
+		flowChecks++;
+		DinicMaxFlow maxFlow = new DinicMaxFlow(
+				UndirectedGraph.fromEdgeMatrix(edgeMatrix));
+		int flow = maxFlow.maxFlow(i, j, lambda);
+		if (flow < lambda) {
+			lambda = flow;
+			boolean[] side = new boolean[n];
+			for (int v = 0; v < n; v++) {
+				side[v] = maxFlow.onSourceSide(v);
+			}
+			addToPool(side, flow);
+		}
+	}
+
+	private void checkEdge(int i, int j) {
+		if (i == j || i < 0 || j < 0 || i >= n || j >= n) {
+			throw new IllegalArgumentException("invalid edge " + i + "-" + j);
+		}
+	}
+
+	/*
+	 * follow a change of the multiplicity of i-j in degrees and pooled cuts
+	 */
+	private void change(int i, int j, int delta) {
+		degree[i] += delta;
+		degree[j] += delta;
+		for (int k = 0; k < poolSize; k++) {
+			if (pool[k][i] != pool[k][j]) {
+				poolValue[k] += delta;
+			}
+		}
+	}
+
+	/*
+	 * smallest value of a known cut
+	 */
+	private int upperBound() {
+		int result = Integer.MAX_VALUE;
+		for (int v = 0; v < n; v++) {
+			result = Math.min(result, degree[v]);
+		}
+		for (int k = 0; k < poolSize; k++) {
+			result = Math.min(result, poolValue[k]);
+		}
+		return result;
+	}
+
+	/*
+	 * keep a cut, replacing the known cut of the highest value if the pool
+	 * is full
+	 */
+	private void addToPool(boolean[] side, int value) {
+		int k = poolSize;
+		if (poolSize == POOL_SIZE) {
+			k = 0;
+			for (int l = 1; l < POOL_SIZE; l++) {
+				if (poolValue[l] > poolValue[k]) {
+					k = l;
+				}
+			}
+			if (poolValue[k] <= value) {
+				return;
+			}
+		} else {
+			poolSize++;
+		}
+		System.arraycopy(side, 0, pool[k], 0, n);
+		poolValue[k] = value;
+	}
+
+	private void addToPool(int[] members, int value) {
+		boolean[] side = new boolean[n];
+		for (int v : members) {
+			side[v] = true;
+		}
+		addToPool(side, value);
+	}
+
+	/*
+	 * minimum cut from scratch, pooling the minimum cuts met on the way
+	 */
+	private void recompute() {
+		recomputations++;
+		poolSize = 0;
+		if (n < 2) {
+			lambda = 0;
+			return;
+		}
+		int best = Integer.MAX_VALUE;
+		for (int v = 0; v < n; v++) {
+			best = Math.min(best, degree[v]);
+		}
+
+		ContractibleGraph contracted = new ContractibleGraph(
+				UndirectedGraph.fromEdgeMatrix(edgeMatrix));
+		while (contracted.aliveCount() > 1 && best > 0) {
+			if (!contracted.order(best + 1)) {
+				// the ordered vertices form a component
+				boolean[] side = new boolean[n];
+				for (int i = 0; i < contracted.orderedCount(); i++) {
+					for (int v : contracted.members(contracted.ordered(i))) {
+						side[v] = true;
+					}
+				}
+				best = 0;
+				poolSize = 0;
+				addToPool(side, 0);
+				break;
+			}
+			int count = contracted.orderedCount();
+			int last = contracted.ordered(count - 1);
+			int value = contracted.lastAttachment();
+			if (value < best) {
+				best = value;
+				poolSize = 0;
+			}
+			if (value == best) {
+				addToPool(contracted.members(last), value);
+			}
+			contracted.addPair(contracted.ordered(count - 2), last);
+			contracted.contractRecorded();
+		}
+		lambda = best;
+	}
+}
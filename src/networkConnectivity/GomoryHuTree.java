@@ -0,0 +1,295 @@
+package networkConnectivity;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Gomory-Hu tree of an UndirectedGraph, built with Gusfield's algorithm: n - 1
+ * maximum flows on the graph itself, no contraction. For every pair s, t the
+ * smallest weight on the tree path between them is lambda(s, t), the number
+ * of edge disjoint s-t paths; queries climb the tree with binary lifting in
+ * O(log n).
+ *
+ * Vertex s takes its flow to its current tree parent, and earlier vertices
+ * may still change that parent, so Gusfield's loop is sequential. The flows
+ * of a batch of vertices are run in parallel against the parents at the start
+ * of the batch and then applied in order; a result whose parent changed in
+ * the meantime is recomputed. Every flow cuts off the residual reachable set,
+ * the unique smallest minimum cut, so the tree does not depend on the number
+ * of threads.
+ *
+ * @author LiP
+ *
+ */
+public class GomoryHuTree {
+
+	// flows per fork-join leaf
+	private static final int FLOWS_PER_TASK = 4;
+
+	private final int n;
+	// tree edges v-parent[v] with weight weight[v], the root 0 has parent -1
+	private final int[] parent;
+	private final int[] weight;
+
+	// binary lifting: 2^k-th ancestor and smallest weight on the way up
+	private final int[] depth;
+	private final int[][] up;
+	private final int[][] upMin;
+
+	/**
+	 * @param graph
+	 *            input graph
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 */
+	public GomoryHuTree(UndirectedGraph graph, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		n = graph.V();
+		parent = new int[n];
+		weight = new int[n];
+		DinicMaxFlow maxFlow = new DinicMaxFlow(graph);
+		if (parallelism == 1) {
+			buildSequential(maxFlow);
+		} else {
+			buildParallel(maxFlow, parallelism);
+		}
+		if (n > 0) {
+			parent[0] = -1;
+		}
+
+		depth = new int[n];
+		int levels = 1;
+		while ((1 << levels) < n) {
+			levels++;
+		}
+		up = new int[levels][n];
+		upMin = new int[levels][n];
+		lift();
+	}
+
+	/*
+	 * Gusfield's update after the flow from s to its parent t cut off side
+	 */
+	private void apply(int s, int value, boolean[] side) {
+		int t = parent[s];
+		weight[s] = value;
+		for (int i = 0; i < n; i++) {
+			if (i != s && side[i] && parent[i] == t) {
+				parent[i] = s;
+			}
+		}
+		if (side[parent[t]]) {
+			parent[s] = parent[t];
+			parent[t] = s;
+			weight[s] = weight[t];
+			weight[t] = value;
+		}
+	}
+
+	private void buildSequential(DinicMaxFlow maxFlow) {
+		boolean[] side = new boolean[n];
+		for (int s = 1; s < n; s++) {
+			int value = cut(maxFlow, s, parent[s], side);
+			apply(s, value, side);
+		}
+	}
+
+	private void buildParallel(DinicMaxFlow maxFlow, int parallelism) {
+		int batch = FLOWS_PER_TASK * parallelism;
+		int[] target = new int[batch];
+		int[] value = new int[batch];
+		boolean[][] side = new boolean[batch][n];
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (int first = 1; first < n; first += batch) {
+				int count = Math.min(batch, n - first);
+				for (int i = 0; i < count; i++) {
+					target[i] = parent[first + i];
+				}
+				pool.invoke(new FlowTask(maxFlow, first, target, value, side,
+						0, count));
+				for (int i = 0; i < count; i++) {
+					int s = first + i;
+					if (parent[s] != target[i]) {
+						value[i] = cut(maxFlow, s, parent[s], side[i]);
+					}
+					apply(s, value[i], side[i]);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * lambda(s, t) and the source side of the smallest minimum cut
+	 */
+	private int cut(DinicMaxFlow maxFlow, int s, int t, boolean[] side) {
+		int value = maxFlow.maxFlow(s, t);
+		for (int v = 0; v < n; v++) {
+			side[v] = maxFlow.onSourceSide(v);
+		}
+		return value;
+	}
+
+	/*
+	 * depths and lifting tables, children before their subtrees
+	 */
+	private void lift() {
+		if (n == 0) {
+			return;
+		}
+		int[] childStart = new int[n + 1];
+		for (int v = 1; v < n; v++) {
+			childStart[parent[v] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			childStart[v + 1] += childStart[v];
+		}
+		int[] fill = new int[n];
+		System.arraycopy(childStart, 0, fill, 0, n);
+		int[] child = new int[n];
+		for (int v = 1; v < n; v++) {
+			child[fill[parent[v]]++] = v;
+		}
+
+		int[] queue = new int[n];
+		queue[0] = 0;
+		int tail = 1;
+		for (int head = 0; head < tail; head++) {
+			int v = queue[head];
+			for (int i = childStart[v]; i < childStart[v + 1]; i++) {
+				depth[child[i]] = depth[v] + 1;
+				queue[tail++] = child[i];
+			}
+		}
+
+		for (int v = 0; v < n; v++) {
+			up[0][v] = v == 0 ? 0 : parent[v];
+			upMin[0][v] = v == 0 ? Integer.MAX_VALUE : weight[v];
+		}
+		for (int k = 1; k < up.length; k++) {
+			for (int v = 0; v < n; v++) {
+				int middle = up[k - 1][v];
+				up[k][v] = up[k - 1][middle];
+				upMin[k][v] = Math.min(upMin[k - 1][v], upMin[k - 1][middle]);
+			}
+		}
+	}
+
+	/*
+	 * getters
+	 */
+	public int V() {
+		return n;
+	}
+
+	/**
+	 * @return tree parent of v, -1 for the root 0
+	 */
+	public int parent(int v) {
+		return parent[v];
+	}
+
+	/**
+	 * @return weight of the tree edge from v to its parent
+	 */
+	public int parentWeight(int v) {
+		return weight[v];
+	}
+
+	/**
+	 * @param s
+	 *            vertex
+	 * @param t
+	 *            another vertex
+	 * @return lambda(s, t), the smallest weight on the tree path
+	 */
+	public int lambda(int s, int t) {
+		if (s == t) {
+			throw new IllegalArgumentException(
+					"lambda needs two different vertices");
+		}
+		int result = Integer.MAX_VALUE;
+		if (depth[s] < depth[t]) {
+			int swap = s;
+			s = t;
+			t = swap;
+		}
+		for (int k = up.length - 1; k >= 0; k--) {
+			if (depth[s] - (1 << k) >= depth[t]) {
+				result = Math.min(result, upMin[k][s]);
+				s = up[k][s];
+			}
+		}
+		if (s == t) {
+			return result;
+		}
+		for (int k = up.length - 1; k >= 0; k--) {
+			if (up[k][s] != up[k][t]) {
+				result = Math.min(result, Math.min(upMin[k][s], upMin[k][t]));
+				s = up[k][s];
+				t = up[k][t];
+			}
+		}
+		return Math.min(result, Math.min(upMin[0][s], upMin[0][t]));
+	}
+
+	/**
+	 * @return global minimum cut, the lightest tree edge; 0 for less than 2
+	 *         vertices
+	 */
+	public int minCut() {
+		if (n < 2) {
+			return 0;
+		}
+		int result = Integer.MAX_VALUE;
+		for (int v = 1; v < n; v++) {
+			result = Math.min(result, weight[v]);
+		}
+		return result;
+	}
+
+	/*
+	 * flows of batch entries [lo, hi), every leaf with its own workspace
+	 */
+	@SuppressWarnings("serial")
+	private class FlowTask extends RecursiveAction {
+		private final DinicMaxFlow maxFlow;
+		private final int first;
+		private final int[] target;
+		private final int[] value;
+		private final boolean[][] side;
+		private final int lo;
+		private final int hi;
+
+		FlowTask(DinicMaxFlow maxFlow, int first, int[] target, int[] value,
+				boolean[][] side, int lo, int hi) {
+			this.maxFlow = maxFlow;
+			this.first = first;
+			this.target = target;
+			this.value = value;
+			this.side = side;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > FLOWS_PER_TASK) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new FlowTask(maxFlow, first, target, value, side, lo,
+						mid), new FlowTask(maxFlow, first, target, value,
+						side, mid, hi));
+				return;
+			}
+			DinicMaxFlow workspace = new DinicMaxFlow(maxFlow);
+			for (int i = lo; i < hi; i++) {
+				value[i] = cut(workspace, first + i, target[i], side[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,444 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Randomized minimum cut engine after Karger and Stein. A trial contracts the
+ * graph twice, independently, from n to 1 + n / sqrt(2) vertices and recurses
+ * on both results. Below BASE_SIZE vertices, where 1 + n / sqrt(2) shrinks
+ * the graph by little more than a vertex per level while the branches still
+ * double, graphs are cut exactly with NIMinCut. A contraction picks every
+ * edge with probability proportional to its multiplicity: edges are sorted by
+ * an exponential key of rate equal to their weight and joined by union-find
+ * in that order, Kruskal style, until enough vertices are left.
+ *
+ * One trial finds a given minimum cut with probability P(n) given by the
+ * Karger-Stein recurrence, computed for the sizes actually visited, so the
+ * number of trials follows from the requested success probability. Trials are
+ * independent and spread over a ForkJoinPool, each with its own
+ * SplittableRandom split in trial order from the seed; the best cut, the
+ * first on ties, does not depend on the number of threads.
+ *
+ * @author LiP
+ *
+ */
+public class KargerSteinMinCut implements MinCutEngine {
+
+	private static final int BASE_SIZE = 12;
+
+	private final double successProbability;
+	private final int parallelism;
+	private final long seed;
+
+	/**
+	 * @param successProbability
+	 *            probability, in (0, 1), of returning a minimum cut
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @param seed
+	 *            seed of the trials
+	 */
+	public KargerSteinMinCut(double successProbability, int parallelism,
+			long seed) {
+		if (successProbability <= 0 || successProbability >= 1) {
+			throw new IllegalArgumentException(
+					"success probability must be in (0, 1)");
+		}
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		this.successProbability = successProbability;
+		this.parallelism = parallelism;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param n
+	 *            number of vertices
+	 * @return number of trials needed for the success probability
+	 */
+	public int trials(int n) {
+		double trial = trialSuccess(n);
+		if (trial >= 1) {
+			return 1;
+		}
+		return (int) Math.ceil(Math.log(1 - successProbability)
+				/ Math.log(1 - trial));
+	}
+
+	/*
+	 * P(n) = 1 - (1 - p(n, t) P(t))^2, where p(n, t) >= t(t - 1) / (n(n - 1))
+	 * bounds the chance that contracting n to t vertices spares a given
+	 * minimum cut
+	 */
+	private static double trialSuccess(int n) {
+		if (n <= BASE_SIZE) {
+			return 1;
+		}
+		int t = target(n);
+		double spared = (double) t * (t - 1) / ((double) n * (n - 1));
+		double branch = spared * trialSuccess(t);
+		return 1 - (1 - branch) * (1 - branch);
+	}
+
+	private static int target(int n) {
+		return (int) Math.ceil(1 + n / Math.sqrt(2));
+	}
+
+	@Override
+	public MinCut minCut(UndirectedGraph graph) {
+		int n = graph.V();
+		if (n < 2) {
+			return new MinCut(0, new int[0]);
+		}
+		EdgeList edges = new EdgeList(graph);
+		int count = trials(n);
+		SplittableRandom root = new SplittableRandom(seed);
+		SplittableRandom[] random = new SplittableRandom[count];
+		for (int i = 0; i < count; i++) {
+			random[i] = root.split();
+		}
+		MinCut[] result = new MinCut[count];
+
+		int grain = Math.max(1, (count + parallelism - 1) / parallelism);
+		TrialTask task = new TrialTask(edges, random, result, 0, count, grain);
+		if (parallelism == 1) {
+			task.compute();
+		} else {
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(task);
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		MinCut best = result[0];
+		for (int i = 1; i < count; i++) {
+			if (result[i].getValue() < best.getValue()) {
+				best = result[i];
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * a contracted graph: merged edges a-b of weight w, and the vertex every
+	 * vertex of the graph it was contracted from went to
+	 */
+	private static class EdgeList {
+		private final int n;
+		private final int m;
+		private final int[] a;
+		private final int[] b;
+		private final int[] w;
+		private final EdgeList from;
+		private final int[] map;
+
+		EdgeList(UndirectedGraph graph) {
+			n = graph.V();
+			int count = 0;
+			for (int u = 0; u < n; u++) {
+				for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+					if (u < graph.neighbor(e)) {
+						count++;
+					}
+				}
+			}
+			m = count;
+			a = new int[m];
+			b = new int[m];
+			w = new int[m];
+			count = 0;
+			for (int u = 0; u < n; u++) {
+				for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+					if (u < graph.neighbor(e)) {
+						a[count] = u;
+						b[count] = graph.neighbor(e);
+						w[count++] = graph.weight(e);
+					}
+				}
+			}
+			from = null;
+			map = null;
+		}
+
+		EdgeList(int n, int m, int[] a, int[] b, int[] w, EdgeList from,
+				int[] map) {
+			this.n = n;
+			this.m = m;
+			this.a = a;
+			this.b = b;
+			this.w = w;
+			this.from = from;
+			this.map = map;
+		}
+
+		/**
+		 * side of a cut of this graph as vertices of the input graph
+		 */
+		int[] lift(int[] side) {
+			boolean[] in = new boolean[n];
+			for (int v : side) {
+				in[v] = true;
+			}
+			EdgeList level = this;
+			while (level.from != null) {
+				boolean[] up = new boolean[level.from.n];
+				for (int v = 0; v < level.from.n; v++) {
+					up[v] = in[level.map[v]];
+				}
+				in = up;
+				level = level.from;
+			}
+			int count = 0;
+			for (boolean x : in) {
+				if (x) {
+					count++;
+				}
+			}
+			int[] result = new int[count];
+			count = 0;
+			for (int v = 0; v < in.length; v++) {
+				if (in[v]) {
+					result[count++] = v;
+				}
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * best cut of a trial, as a side of the contracted graph it was found in
+	 */
+	private static class Leaf {
+		private int value = Integer.MAX_VALUE;
+		private EdgeList graph;
+		private int[] side;
+
+		MinCut toMinCut() {
+			return new MinCut(value, graph.lift(side));
+		}
+	}
+
+	private static MinCut trial(EdgeList graph, SplittableRandom random) {
+		Leaf best = new Leaf();
+		trial(graph, random, best);
+		return best.toMinCut();
+	}
+
+	/*
+	 * one level of recursive contraction
+	 */
+	private static void trial(EdgeList graph, SplittableRandom random,
+			Leaf best) {
+		if (graph.n <= BASE_SIZE) {
+			MinCut cut = new NIMinCut().minCut(UndirectedGraph.fromEdges(
+					graph.n, new int[graph.n], graph.a, graph.b, graph.w,
+					graph.m));
+			if (cut.getValue() < best.value) {
+				best.value = cut.getValue();
+				best.graph = graph;
+				best.side = cut.getSide();
+			}
+			return;
+		}
+		int t = target(graph.n);
+		for (int branch = 0; branch < 2 && best.value > 0; branch++) {
+			EdgeList contracted = contract(graph, t, random);
+			if (contracted.n > t) {
+				// more components than vertices asked for: one of them is a
+				// cut of value zero
+				best.value = 0;
+				best.graph = contracted;
+				best.side = new int[] { 0 };
+			} else {
+				trial(contracted, random, best);
+			}
+		}
+	}
+
+	/*
+	 * random contraction to t vertices, or to the components of the graph if
+	 * there are more of them
+	 */
+	private static EdgeList contract(EdgeList graph, int t,
+			SplittableRandom random) {
+		// an exponential key of rate w is the minimum over w parallel edges;
+		// positive floats sort like their bits
+		long[] keys = new long[graph.m];
+		for (int e = 0; e < graph.m; e++) {
+			float key = (float) (-Math.log(1 - random.nextDouble())
+					/ graph.w[e]);
+			keys[e] = ((long) Float.floatToIntBits(key) << 32) | e;
+		}
+
+		// only a prefix of the order is needed: select the smallest keys,
+		// sort and join them, and take twice as many while vertices remain
+		int[] root = new int[graph.n];
+		for (int v = 0; v < graph.n; v++) {
+			root[v] = v;
+		}
+		int components = graph.n;
+		int done = 0;
+		int prefix = Math.min(graph.m, 2 * (graph.n - t) + 16);
+		while (components > t && done < graph.m) {
+			select(keys, done, graph.m, prefix);
+			Arrays.sort(keys, done, prefix);
+			for (int i = done; i < prefix && components > t; i++) {
+				int e = (int) keys[i];
+				int x = find(root, graph.a[e]);
+				int y = find(root, graph.b[e]);
+				if (x != y) {
+					root[x] = y;
+					components--;
+				}
+			}
+			done = prefix;
+			prefix = Math.min(graph.m, 2 * prefix);
+		}
+
+		int[] map = new int[graph.n];
+		Arrays.fill(map, -1);
+		int count = 0;
+		for (int v = 0; v < graph.n; v++) {
+			int r = find(root, v);
+			if (map[r] == -1) {
+				map[r] = count++;
+			}
+			map[v] = map[r];
+		}
+
+		// merge the surviving edges by endpoint pair: counting sort by the
+		// larger endpoint, then stably by the smaller one
+		int[] byLarge = new int[count + 1];
+		int kept = 0;
+		for (int e = 0; e < graph.m; e++) {
+			int x = map[graph.a[e]];
+			int y = map[graph.b[e]];
+			if (x != y) {
+				byLarge[Math.max(x, y) + 1]++;
+				kept++;
+			}
+		}
+		for (int v = 0; v < count; v++) {
+			byLarge[v + 1] += byLarge[v];
+		}
+		int[] sorted = new int[kept];
+		for (int e = 0; e < graph.m; e++) {
+			int x = map[graph.a[e]];
+			int y = map[graph.b[e]];
+			if (x != y) {
+				sorted[byLarge[Math.max(x, y)]++] = e;
+			}
+		}
+		int[] bySmall = new int[count + 1];
+		for (int e : sorted) {
+			bySmall[Math.min(map[graph.a[e]], map[graph.b[e]]) + 1]++;
+		}
+		for (int v = 0; v < count; v++) {
+			bySmall[v + 1] += bySmall[v];
+		}
+		int[] order = new int[kept];
+		for (int e : sorted) {
+			order[bySmall[Math.min(map[graph.a[e]], map[graph.b[e]])]++] = e;
+		}
+
+		int[] a = new int[kept];
+		int[] b = new int[kept];
+		int[] w = new int[kept];
+		int m = 0;
+		for (int e : order) {
+			int x = Math.min(map[graph.a[e]], map[graph.b[e]]);
+			int y = Math.max(map[graph.a[e]], map[graph.b[e]]);
+			if (m > 0 && a[m - 1] == x && b[m - 1] == y) {
+				w[m - 1] += graph.w[e];
+			} else {
+				a[m] = x;
+				b[m] = y;
+				w[m++] = graph.w[e];
+			}
+		}
+		return new EdgeList(count, m, a, b, w, graph, map);
+	}
+
+	/*
+	 * quickselect: move the smallest keys of [lo, hi) to [lo, k)
+	 */
+	private static void select(long[] keys, int lo, int hi, int k) {
+		hi--;
+		while (lo < hi && k > lo && k <= hi) {
+			long pivot = keys[lo + (hi - lo) / 2];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (keys[i] < pivot) {
+					i++;
+				}
+				while (keys[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					long swap = keys[i];
+					keys[i++] = keys[j];
+					keys[j--] = swap;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private static int find(int[] root, int v) {
+		while (root[v] != v) {
+			root[v] = root[root[v]];
+			v = root[v];
+		}
+		return v;
+	}
+
+	/*
+	 * trials [lo, hi)
+	 */
+	@SuppressWarnings("serial")
+	private static class TrialTask extends RecursiveAction {
+		private final EdgeList graph;
+		private final SplittableRandom[] random;
+		private final MinCut[] result;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		TrialTask(EdgeList graph, SplittableRandom[] random, MinCut[] result,
+				int lo, int hi, int grain) {
+			this.graph = graph;
+			this.random = random;
+			this.result = result;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new TrialTask(graph, random, result, lo, mid, grain),
+						new TrialTask(graph, random, result, mid, hi, grain));
+				return;
+			}
+			for (int i = lo; i < hi; i++) {
+				result[i] = trial(graph, random[i]);
+			}
+		}
+	}
+}
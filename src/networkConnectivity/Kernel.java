@@ -0,0 +1,255 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * Kernel of a graph for the global minimum cut: the graph left after
+ * contracting edges the Padberg-Rinaldi tests prove safe. With b the smallest
+ * vertex degree seen so far, an upper bound on the minimum cut, an edge u-v
+ * of weight c is contracted if
+ * 
+ * PR1: c >= b, or
+ * 
+ * PR2: 2c >= min(d(u), d(v)), or
+ * 
+ * PR3: for some common neighbor w, 2(c + c(u, w)) >= d(u) and 2(c + c(v, w))
+ * >= d(v), or
+ * 
+ * PR4: c + sum over common neighbors w of min(c(u, w), c(v, w)) >= b.
+ * 
+ * PR1 and PR4 show lambda(u, v) >= b, so any number of such edges can be
+ * contracted together. PR2 and PR3 show that a cut separating u and v can be
+ * moved to one that does not, unless it is a single vertex cut; they depend
+ * on the current degrees of u and v, so within a round an endpoint takes part
+ * in at most one contraction. Rounds repeat, the more expensive PR3 and PR4
+ * only when PR1 and PR2 find nothing, until no test applies.
+ * 
+ * The minimum cut of the graph is the smaller of b and the minimum cut of the
+ * kernel.
+ *
+ * @author LiP
+ *
+ */
+public class Kernel {
+
+	private final int originalVertices;
+	private final int originalEdges;
+	private final UndirectedGraph graph;
+	// original vertices contracted into every kernel vertex
+	private final int[][] members;
+	private final int upperBound;
+	private final int[] upperBoundSide;
+
+	private Kernel(int originalVertices, int originalEdges,
+			UndirectedGraph graph, int[][] members, int upperBound,
+			int[] upperBoundSide) {
+		this.originalVertices = originalVertices;
+		this.originalEdges = originalEdges;
+		this.graph = graph;
+		this.members = members;
+		this.upperBound = upperBound;
+		this.upperBoundSide = upperBoundSide;
+	}
+
+	/**
+	 * @param input
+	 *            input graph
+	 * @return its kernel
+	 */
+	public static Kernel reduce(UndirectedGraph input) {
+		int n = input.V();
+		ContractibleGraph contracted = new ContractibleGraph(input);
+		int[] degree = new int[n];
+		int[] touched = new int[n];
+		int[] weightTo = new int[n];
+		int[] weightStamp = new int[n];
+		int round = 0;
+		int stamp = 0;
+		int bound = Integer.MAX_VALUE;
+		int[] boundSide = new int[0];
+
+		while (contracted.aliveCount() > 1 && bound > 0) {
+			round++;
+			for (int i = 0; i < contracted.aliveCount(); i++) {
+				int r = contracted.alive(i);
+				contracted.compact(r);
+				degree[r] = 0;
+				for (int j = 0; j < contracted.rowLength(r); j++) {
+					degree[r] += contracted.rowWeight(r, j);
+				}
+				if (degree[r] < bound) {
+					bound = degree[r];
+					boundSide = contracted.members(r);
+				}
+			}
+			if (bound == 0) {
+				break;
+			}
+
+			int pairs = 0;
+			// PR1, then PR2 on untouched endpoints
+			for (int pass = 0; pass < 2; pass++) {
+				for (int i = 0; i < contracted.aliveCount(); i++) {
+					int u = contracted.alive(i);
+					for (int j = 0; j < contracted.rowLength(u); j++) {
+						int v = contracted.rowVertex(u, j);
+						int c = contracted.rowWeight(u, j);
+						if (u > v) {
+							continue;
+						}
+						boolean contract = pass == 0 ? c >= bound
+								: touched[u] != round
+										&& touched[v] != round
+										&& 2L * c >= Math.min(degree[u],
+												degree[v]);
+						if (contract) {
+							contracted.addPair(u, v);
+							touched[u] = round;
+							touched[v] = round;
+							pairs++;
+						}
+					}
+				}
+			}
+
+			if (pairs == 0) {
+				// PR3 and PR4 over the common neighbors of every edge
+				for (int i = 0; i < contracted.aliveCount(); i++) {
+					int u = contracted.alive(i);
+					stamp++;
+					for (int j = 0; j < contracted.rowLength(u); j++) {
+						weightTo[contracted.rowVertex(u, j)] = contracted
+								.rowWeight(u, j);
+						weightStamp[contracted.rowVertex(u, j)] = stamp;
+					}
+					for (int j = 0; j < contracted.rowLength(u); j++) {
+						int v = contracted.rowVertex(u, j);
+						int c = contracted.rowWeight(u, j);
+						if (u > v) {
+							continue;
+						}
+						long paths = c;
+						boolean triangle = false;
+						for (int l = 0; l < contracted.rowLength(v); l++) {
+							int w = contracted.rowVertex(v, l);
+							if (weightStamp[w] != stamp) {
+								continue;
+							}
+							int cvw = contracted.rowWeight(v, l);
+							paths += Math.min(weightTo[w], cvw);
+							triangle |= 2L * (c + weightTo[w]) >= degree[u]
+									&& 2L * (c + cvw) >= degree[v];
+						}
+						if (paths >= bound
+								|| (triangle && touched[u] != round
+										&& touched[v] != round)) {
+							contracted.addPair(u, v);
+							touched[u] = round;
+							touched[v] = round;
+							pairs++;
+						}
+					}
+				}
+			}
+			if (pairs == 0) {
+				break;
+			}
+			contracted.contractRecorded();
+		}
+
+		// the kernel, kernel vertex i standing for alive representative i
+		int k = contracted.aliveCount();
+		int[] label = new int[k];
+		int[] index = new int[n];
+		int[][] members = new int[k][];
+		int entries = 0;
+		for (int i = 0; i < k; i++) {
+			int r = contracted.alive(i);
+			index[r] = i;
+			contracted.compact(r);
+			entries += contracted.rowLength(r);
+			members[i] = contracted.members(r);
+			label[i] = r;
+		}
+		int[] a = new int[entries];
+		int[] b = new int[entries];
+		int[] w = new int[entries];
+		int m = 0;
+		for (int i = 0; i < k; i++) {
+			int r = label[i];
+			for (int j = 0; j < contracted.rowLength(r); j++) {
+				if (r < contracted.rowVertex(r, j)) {
+					a[m] = i;
+					b[m] = index[contracted.rowVertex(r, j)];
+					w[m++] = contracted.rowWeight(r, j);
+				}
+			}
+		}
+		int originalEdges = n == 0 ? 0 : input.lastEdge(n - 1) / 2;
+		return new Kernel(n, originalEdges, UndirectedGraph.fromEdges(k,
+				label, a, b, w, m), members, bound, boundSide);
+	}
+
+	/*
+	 * getters
+	 */
+	public UndirectedGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return smallest vertex degree seen while reducing, a cut value
+	 */
+	public int getUpperBound() {
+		return upperBound;
+	}
+
+	/**
+	 * @return kernel vertices per original vertex
+	 */
+	public double getVertexRatio() {
+		return originalVertices == 0 ? 1 : (double) graph.V()
+				/ originalVertices;
+	}
+
+	/**
+	 * @return kernel adjacencies per original adjacency, parallel edges
+	 *         counted once
+	 */
+	public double getEdgeRatio() {
+		int edges = graph.V() == 0 ? 0 : graph.lastEdge(graph.V() - 1) / 2;
+		return originalEdges == 0 ? 1 : (double) edges / originalEdges;
+	}
+
+	/**
+	 * minimum cut of the original graph, cutting the kernel with an exact
+	 * engine
+	 * 
+	 * @param engine
+	 *            minimum cut engine
+	 * @return a minimum cut, its side holds original vertices
+	 */
+	public MinCut minCut(MinCutEngine engine) {
+		if (originalVertices < 2) {
+			return new MinCut(0, new int[0]);
+		}
+		MinCut cut = graph.V() < 2 ? null : engine.minCut(graph);
+		if (cut == null || cut.getValue() >= upperBound) {
+			int[] side = upperBoundSide.clone();
+			Arrays.sort(side);
+			return new MinCut(upperBound, side);
+		}
+		int count = 0;
+		for (int v : cut.getSide()) {
+			count += members[v].length;
+		}
+		int[] side = new int[count];
+		count = 0;
+		for (int v : cut.getSide()) {
+			System.arraycopy(members[v], 0, side, count, members[v].length);
+			count += members[v].length;
+		}
+		Arrays.sort(side);
+		return new MinCut(cut.getValue(), side);
+	}
+}
@@ -0,0 +1,84 @@
+package networkConnectivity;
+
+/**
+ * Maximum adjacency ordering of an UndirectedGraph: starting from a given
+ * vertex, the next vertex is always one with the most edges, parallel edges
+ * counted, into the vertices ordered so far. The candidates wait in a
+ * BucketQueue keyed by that count, so the ordering takes O(n + m) for m
+ * edges, with no bound on the number of vertices.
+ *
+ * If the graph is disconnected, the vertices not reachable from the start are
+ * still ordered, each one with attachment zero.
+ *
+ * @author LiP
+ *
+ */
+public class MAOrdering {
+
+	private final int[] order;
+	// edges from order[i] into order[0], ..., order[i - 1]
+	private final int[] attachment;
+	private final boolean connected;
+
+	/**
+	 * @param graph
+	 *            input graph
+	 * @param start
+	 *            first vertex of the ordering
+	 */
+	public MAOrdering(UndirectedGraph graph, int start) {
+		int n = graph.V();
+		order = new int[n];
+		attachment = new int[n];
+		BucketQueue queue = new BucketQueue(n);
+		for (int v = 0; v < n; v++) {
+			queue.insert(v, 0);
+		}
+		queue.remove(start);
+
+		boolean reachedAll = true;
+		int v = start;
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				v = queue.extractMax();
+				attachment[i] = queue.key(v);
+				reachedAll &= attachment[i] > 0;
+			}
+			order[i] = v;
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int w = graph.neighbor(e);
+				if (queue.contains(w)) {
+					queue.increase(w, graph.weight(e));
+				}
+			}
+		}
+		connected = reachedAll;
+	}
+
+	/*
+	 * getters
+	 */
+	public int size() {
+		return order.length;
+	}
+
+	public int vertex(int i) {
+		return order[i];
+	}
+
+	/**
+	 * @param i
+	 *            position in the ordering
+	 * @return number of edges between vertex(i) and the vertices before it
+	 */
+	public int attachment(int i) {
+		return attachment[i];
+	}
+
+	/**
+	 * @return true if every vertex is reachable from the start
+	 */
+	public boolean isConnected() {
+		return connected;
+	}
+}
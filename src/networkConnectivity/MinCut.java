@@ -0,0 +1,31 @@
+package networkConnectivity;
+
+/**
+ * A minimum cut: its value, the number of edges crossing it, and the vertices
+ * on one of its sides.
+ *
+ * @author LiP
+ *
+ */
+public class MinCut {
+
+	private final int value;
+	// vertices of one side, increasing
+	private final int[] side;
+
+	MinCut(int value, int[] side) {
+		this.value = value;
+		this.side = side;
+	}
+
+	/*
+	 * getters
+	 */
+	public int getValue() {
+		return value;
+	}
+
+	public int[] getSide() {
+		return side;
+	}
+}
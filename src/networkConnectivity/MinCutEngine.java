@@ -0,0 +1,18 @@
+package networkConnectivity;
+
+/**
+ * Global minimum cut algorithm on an UndirectedGraph.
+ *
+ * @author LiP
+ *
+ */
+public interface MinCutEngine {
+
+	/**
+	 * @param graph
+	 *            input graph
+	 * @return a minimum cut, of value 0 with an empty side if the graph has
+	 *         less than 2 vertices
+	 */
+	MinCut minCut(UndirectedGraph graph);
+}
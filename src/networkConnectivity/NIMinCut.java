@@ -0,0 +1,69 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * Minimum cut engine after Nagamochi and Ibaraki, on integer edge weights,
+ * contracting a ContractibleGraph in a loop of phases until one vertex is
+ * left.
+ *
+ * Every phase computes a maximum adjacency ordering of the contracted graph.
+ * The weighted degree of its last vertex t is lambda(s, t) for the vertex s
+ * before it, a candidate cut. Any edge x-y whose count q(e) at the time it was
+ * scanned reaches the best cut found so far also satisfies lambda(x, y) >=
+ * best and is contracted along with s-t, so a phase usually removes many
+ * vertices. The side of the best cut is the set of original vertices merged
+ * into its t.
+ *
+ * An instance keeps no state between calls.
+ *
+ * @author LiP
+ *
+ */
+public class NIMinCut implements MinCutEngine {
+
+	@Override
+	public MinCut minCut(UndirectedGraph graph) {
+		int n = graph.V();
+		if (n < 2) {
+			return new MinCut(0, new int[0]);
+		}
+
+		// the trivial cuts around single vertices bound the minimum
+		int best = Integer.MAX_VALUE;
+		int[] bestSide = null;
+		for (int v = 0; v < n; v++) {
+			if (graph.degree(v) < best) {
+				best = graph.degree(v);
+				bestSide = new int[] { v };
+			}
+		}
+
+		ContractibleGraph contracted = new ContractibleGraph(graph);
+		while (contracted.aliveCount() > 1 && best > 0) {
+			if (!contracted.order(best)) {
+				// the ordered vertices form a component
+				best = 0;
+				bestSide = new int[0];
+				for (int i = 0; i < contracted.orderedCount(); i++) {
+					int[] more = contracted.members(contracted.ordered(i));
+					int length = bestSide.length;
+					bestSide = Arrays.copyOf(bestSide, length + more.length);
+					System.arraycopy(more, 0, bestSide, length, more.length);
+				}
+				break;
+			}
+
+			int last = contracted.ordered(contracted.orderedCount() - 1);
+			if (contracted.lastAttachment() < best) {
+				best = contracted.lastAttachment();
+				bestSide = contracted.members(last);
+			}
+			contracted.addPair(
+					contracted.ordered(contracted.orderedCount() - 2), last);
+			contracted.contractRecorded();
+		}
+		Arrays.sort(bestSide);
+		return new MinCut(best, bestSide);
+	}
+}
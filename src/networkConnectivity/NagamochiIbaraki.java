@@ -5,8 +5,8 @@ import java.awt.Dimension;
 import java.awt.Paint;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import javax.swing.JFrame;
 
@@ -22,10 +22,10 @@ import edu.uci.ics.jung.visualization.renderers.Renderer.VertexLabel.Position;
 
 public class NagamochiIbaraki {
 
-	private static final int MAX_VERTICES_COUNT = 22;
-
 	/**
-	 * find minimum cut of a graph using Nagamochi-Ibaraki algorithm
+	 * find minimum cut of a graph using Nagamochi-Ibaraki algorithm. The graph
+	 * is copied into an UndirectedGraph and cut by NIMinCut, it is not
+	 * modified.
 	 * 
 	 * @param graph
 	 *            input graph
@@ -39,40 +39,93 @@ public class NagamochiIbaraki {
 					.println("Error: Graph does not contrain enough vertices.");
 			return 0;
 		}
+		return new NIMinCut().minCut(UndirectedGraph.fromGraph(graph))
+				.getValue();
+	}
 
-		/*
-		 * base case: if there are only 2 vertices in the graph, return the
-		 * number of edges between the 2 vertices
-		 */
-		if (graph.getVertexCount() == 2) {
-			Iterator<Integer> itVertex = graph.getVertices().iterator();
-			Integer vertex = itVertex.next();
-			return graph.getIncidentEdges(vertex).size();
-		} else {
-			// find MA ordering
-			ArrayList<Integer> maOrdering = findMAOrdering(graph);
-			/* if graph is disconnected, return minimum cut - zero */
-			if (maOrdering == null) {
-				return 0;
-			}
+	/**
+	 * find a minimum cut and the vertices on one side of it
+	 * 
+	 * @param edgeMatrix
+	 *            edge matrix of the input graph
+	 * @return minimum cut, its side holds vertex numbers of the matrix
+	 */
+	public static MinCut findMinCut(int[][] edgeMatrix) {
+		return new NIMinCut().minCut(UndirectedGraph.fromEdgeMatrix(edgeMatrix));
+	}
 
-			/*
-			 * otherwise, find lambda(from, to) and compare it with the minimum
-			 * cut of the contracted graph
-			 */
-			Integer from = maOrdering.get(maOrdering.size() - 1);
-			Integer to = maOrdering.get(maOrdering.size() - 2);
-			int lambdaFromTo = graph.getIncidentEdges(from).size();
-
-			contractGraph(graph, from, to);
-			// recursive call minCutNIAlgorithm()
-			return Math.min(lambdaFromTo, minCutNIAlgorithm(graph));
+	/**
+	 * decide whether a graph is k-edge-connected, i.e. has a minimum cut of at
+	 * least k. The question is answered on a SparseCertificate of the graph
+	 * with at most k (n - 1) edges, which is k-edge-connected exactly when the
+	 * graph is.
+	 * 
+	 * @param graph
+	 *            input graph
+	 * @param k
+	 *            required connectivity
+	 * @return true if the minimum cut is at least k
+	 */
+	public static boolean isKEdgeConnected(
+			UndirectedSparseMultigraph<Integer, UndirectedEdge> graph, int k) {
+		return isKEdgeConnected(UndirectedGraph.fromGraph(graph), k);
+	}
+
+	/**
+	 * @param edgeMatrix
+	 *            edge matrix of the input graph
+	 * @param k
+	 *            required connectivity
+	 * @return true if the minimum cut is at least k
+	 */
+	public static boolean isKEdgeConnected(int[][] edgeMatrix, int k) {
+		return isKEdgeConnected(UndirectedGraph.fromEdgeMatrix(edgeMatrix), k);
+	}
+
+	private static boolean isKEdgeConnected(UndirectedGraph graph, int k) {
+		if (k <= 0) {
+			return true;
 		}
+		// a vertex of low degree is a small cut already
+		for (int v = 0; v < graph.V(); v++) {
+			if (graph.degree(v) < k) {
+				return false;
+			}
+		}
+		UndirectedGraph certificate = SparseCertificate.build(graph, k);
+		return new NIMinCut().minCut(certificate).getValue() >= k;
+	}
+
+	/**
+	 * vertex connectivity, see VertexConnectivity
+	 * 
+	 * @param graph
+	 *            input undirected graph
+	 * @return fewest vertices whose removal disconnects the graph, n - 1 for a
+	 *         complete graph
+	 */
+	public static int vertexConnectivity(
+			UndirectedSparseMultigraph<Integer, UndirectedEdge> graph) {
+		return new VertexConnectivity(UndirectedGraph.fromGraph(graph), Runtime
+				.getRuntime().availableProcessors()).getKappa();
+	}
+
+	/**
+	 * @param edgeMatrix
+	 *            edge matrix of the input graph
+	 * @return fewest vertices whose removal disconnects the graph, n - 1 for a
+	 *         complete graph
+	 */
+	public static int vertexConnectivity(int[][] edgeMatrix) {
+		return new VertexConnectivity(UndirectedGraph.fromEdgeMatrix(edgeMatrix),
+				Runtime.getRuntime().availableProcessors()).getKappa();
 	}
 
 	/**
-	 * create a Maximum Adjacency ordering of a graph, starting point is chosen
-	 * at random.
+	 * create a Maximum Adjacency ordering of a graph, starting with the first
+	 * vertex of graph.getVertices(). The ordering runs on an UndirectedGraph
+	 * copy with a bucket queue, see MAOrdering, so it takes O(n + m) and the
+	 * graph may have any number of vertices.
 	 * 
 	 * @param graph
 	 *            input undirected graph
@@ -82,61 +135,22 @@ public class NagamochiIbaraki {
 	public static ArrayList<Integer> findMAOrdering(
 			UndirectedSparseMultigraph<Integer, UndirectedEdge> graph) {
 
-		int nVertices = graph.getVertexCount();
-		ArrayList<Integer> vertices = new ArrayList<Integer>();
-
 		// check input if input graph has no vertices
-		vertices.addAll(graph.getVertices());
-		if (vertices.size() == 0) {
+		if (graph.getVertexCount() == 0) {
 			return null;
 		}
 
-		ArrayList<Integer> result = new ArrayList<Integer>();
-		/*
-		 * connectingEdgeCount tracks the number of connecting edges with
-		 * existing MA ordered vertex set
-		 */
-		int[] connectingEdgeCount = new int[MAX_VERTICES_COUNT];
-
-		// start with the first nodes in the vertices list
-		Integer nextVertex = vertices.get(0);
-
-		while (result.size() < nVertices && nextVertex != null) {
-			result.add(nextVertex);
-
-			Set<UndirectedEdge> incidentEdges = new HashSet<UndirectedEdge>();
-			incidentEdges.addAll(graph.getIncidentEdges(nextVertex));
-
-			for (UndirectedEdge e : incidentEdges) {
-				Integer firstEndpoint = graph.getEndpoints(e).getFirst();
-				Integer secondEndpoint = graph.getEndpoints(e).getSecond();
-
-				// update connectingEdgeCount Array
-				if (result.contains(firstEndpoint)
-						&& result.contains(secondEndpoint)) {
-					connectingEdgeCount[nextVertex]--;
-				} else {
-					Integer endPoint = (!result.contains(firstEndpoint)) ? firstEndpoint
-							: secondEndpoint;
-					connectingEdgeCount[endPoint]++;
-				}
-			}
-
-			int maxCount = 0;
-			Integer maxVertex = null;
-			for (int i = 0; i < connectingEdgeCount.length; i++) {
-				if (connectingEdgeCount[i] > maxCount) {
-					maxCount = connectingEdgeCount[i];
-					maxVertex = i;
-				}
-			}
-			nextVertex = maxVertex;
-		}
-		if (result.size() < nVertices) {
+		UndirectedGraph primitive = UndirectedGraph.fromGraph(graph);
+		MAOrdering ordering = new MAOrdering(primitive, 0);
+		if (!ordering.isConnected()) {
 			return null;
-		} else {
-			return result;
 		}
+
+		ArrayList<Integer> result = new ArrayList<Integer>();
+		for (int i = 0; i < ordering.size(); i++) {
+			result.add(primitive.label(ordering.vertex(i)));
+		}
+		return result;
 	}
 
 	/**
@@ -176,9 +190,12 @@ public class NagamochiIbaraki {
 	}
 
 	/**
-	 * find number of critical edges of a given graph, remove edges one by one
-	 * and calculate minimum cut of the remaining graph. Parallel edges are
-	 * tested only once.
+	 * find number of critical edges of a given graph, the edges whose removal
+	 * lowers the minimum cut. Parallel edges are counted once per edge matrix
+	 * cell they come from. Removing an edge lowers the minimum cut by one if
+	 * it crosses some minimum cut and leaves it unchanged otherwise, so all
+	 * counts come from one CriticalEdges pass instead of a min cut
+	 * computation per edge.
 	 * 
 	 * @param edgeMatrix
 	 *            edge matrix of the input graph
@@ -188,17 +205,21 @@ public class NagamochiIbaraki {
 	 */
 	public static int findCriticalEdges(int[][] edgeMatrix, int minCut) {
 
+		UndirectedGraph graph = UndirectedGraph.fromEdgeMatrix(edgeMatrix);
+		CriticalEdges criticalEdges = new CriticalEdges(graph);
+		int lambda = criticalEdges.getMinCut();
+
 		int result = 0;
 		for (int i = 0; i < edgeMatrix.length; i++) {
 			for (int j = 0; j < edgeMatrix[i].length; j++) {
 				if (edgeMatrix[i][j] > 0) {
-					edgeMatrix[i][j]--;
-					int minCutTest = minCutNIAlgorithm(createGraph(edgeMatrix));
+					int e = i == j ? -1 : graph.findEdge(i, j);
+					int minCutTest = e != -1 && criticalEdges.isCritical(e)
+							? lambda - 1 : lambda;
 
 					if (minCutTest < minCut) {
-						result = result + edgeMatrix[i][j] + 1;
+						result = result + edgeMatrix[i][j];
 					}
-					edgeMatrix[i][j]++;
 				}
 			}
 		}
@@ -255,6 +276,24 @@ public class NagamochiIbaraki {
 		return result;
 	}
 
+	/*
+	 * the same with a given random source, so that a seed reproduces the graph
+	 */
+	public static int[][] genEdgeMatrix(int n, int m, SplittableRandom random) {
+		int[][] result = new int[n][n];
+		int count = 0;
+		while (count < m) {
+			int startNode = random.nextInt(n);
+			int endNode = random.nextInt(n);
+			// no self-loops
+			if (startNode != endNode) {
+				result[startNode][endNode] += 1;
+				count++;
+			}
+		}
+		return result;
+	}
+
 	public static int findEdgeCount(int[][] m) {
 		int result = 0;
 		for (int i = 0; i < m.length; i++) {
@@ -5,8 +5,6 @@ import java.io.IOException;
 
 import com.opencsv.CSVWriter;
 
-import edu.uci.ics.jung.graph.UndirectedSparseMultigraph;
-
 public class Project2 {
 
 	public static final int NUMBER_OF_VERTICES = 22;
@@ -14,8 +12,45 @@ public class Project2 {
 	public static final int LOWER_BOUND_EDGES = 40;
 	public static final int UPPER_BOUND_EDGES = 400;
 	public static final int INCREMENT_EDGES = 5;
+	public static final double KARGER_STEIN_SUCCESS_PROBABILITY = 0.99;
+
+	public static final long SEED = 2015;
+	public static final String CHECKPOINT = "data/project2_checkpoint.csv";
 
+	/*
+	 * pass -crosscheck to compute every minimum cut with the randomized
+	 * Karger-Stein engine as well and count the graphs where it missed,
+	 * -kernel to cut the Padberg-Rinaldi kernel of every graph instead of the
+	 * graph itself and report how much it shrank, -threads n to run the sweep
+	 * on n threads instead of all processors, and -seed s to draw other
+	 * graphs. Finished graphs go to CHECKPOINT, and a run with the same
+	 * options picks up from there.
+	 */
 	public static void main(String[] args) throws IOException {
+		double crossCheck = 0;
+		boolean kernelize = false;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = SEED;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-kernel")) {
+				kernelize = true;
+			} else if (args[i].equals("-crosscheck")) {
+				crossCheck = KARGER_STEIN_SUCCESS_PROBABILITY;
+			} else if (args[i].equals("-threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-seed") && i + 1 < args.length) {
+				seed = Long.parseLong(args[++i]);
+			}
+		}
+
+		DensitySweep sweep = new DensitySweep(NUMBER_OF_VERTICES,
+				LOWER_BOUND_EDGES, UPPER_BOUND_EDGES, INCREMENT_EDGES,
+				NUMBER_OF_EXPERIMENT, seed, kernelize, crossCheck);
+		sweep.run(CHECKPOINT, threads);
+		if (sweep.getResumed() > 0) {
+			System.out.println("Resumed " + sweep.getResumed()
+					+ " graphs from " + CHECKPOINT);
+		}
 
 		// output to csv file
 		String csv = "data/project2_result.csv";
@@ -24,32 +59,10 @@ public class Project2 {
 				.split(",");
 		writer.writeNext(header);
 
-		for (int edgeCount = LOWER_BOUND_EDGES; edgeCount <= UPPER_BOUND_EDGES; edgeCount += INCREMENT_EDGES) {
-			// repeat each experiment and calculate average
-			int minCutTotal = 0;
-			float minCutAvg = 0;
-			int criticalEdgeTotal = 0;
-			float criticalEdgeAvg = 0;
-
-			for (int experimentCount = 0; experimentCount < NUMBER_OF_EXPERIMENT; experimentCount++) {
-				int[][] edgeMatrix = NagamochiIbaraki.genEdgeMatrix(
-						NUMBER_OF_VERTICES, edgeCount);
-				UndirectedSparseMultigraph<Integer, UndirectedEdge> graph = NagamochiIbaraki
-						.createGraph(edgeMatrix);
-				int minCut = NagamochiIbaraki.minCutNIAlgorithm(graph);
-				minCutTotal += minCut;
-
-				int criticalEdge = 0;
-
-				if (minCut != 0) {
-					criticalEdge = NagamochiIbaraki.findCriticalEdges(
-							edgeMatrix, minCut);
-					criticalEdgeTotal += criticalEdge;
-				}
-			}
-
-			minCutAvg = (float) minCutTotal / NUMBER_OF_EXPERIMENT;
-			criticalEdgeAvg = (float) criticalEdgeTotal / NUMBER_OF_EXPERIMENT;
+		for (int row = 0; row < sweep.getEdgeCounts(); row++) {
+			int edgeCount = sweep.getEdgeCount(row);
+			float minCutAvg = sweep.getAverageMinCut(row);
+			float criticalEdgeAvg = sweep.getAverageCriticalEdges(row);
 
 			// output to csv file
 			String record = String.valueOf(NUMBER_OF_VERTICES)
@@ -70,5 +83,14 @@ public class Project2 {
 					+ "; Average number of critical edges: " + criticalEdgeAvg);
 		}
 		writer.close();
+		if (kernelize) {
+			System.out.println("Kernels kept " + sweep.getAverageVertexRatio()
+					+ " of the vertices and " + sweep.getAverageEdgeRatio()
+					+ " of the adjacencies on average");
+		}
+		if (crossCheck > 0) {
+			System.out.println("Karger-Stein missed the minimum cut of "
+					+ sweep.getMissed() + " graphs");
+		}
 	}
 }
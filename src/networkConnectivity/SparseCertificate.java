@@ -0,0 +1,69 @@
+package networkConnectivity;
+
+/**
+ * Nagamochi-Ibaraki sparse certificate for k-edge-connectivity. In a maximum
+ * adjacency ordering, the j-th edge that joins a vertex y to the ordered
+ * vertices belongs to forest F_j; the forests F_1, ..., F_k together keep
+ * min(lambda(x, y), k) for every pair, so the graph is k-edge-connected if
+ * and only if they are, and they hold at most k (n - 1) edges. Parallel edges
+ * of one adjacency entry get consecutive forest numbers, so an entry only
+ * keeps the part of its weight that falls into the first k forests.
+ *
+ * @author LiP
+ *
+ */
+public class SparseCertificate {
+
+	/**
+	 * @param graph
+	 *            input graph
+	 * @param k
+	 *            number of forests, positive
+	 * @return the certificate over the same vertices and labels
+	 */
+	public static UndirectedGraph build(UndirectedGraph graph, int k) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be a positive number");
+		}
+		int n = graph.V();
+		int[] label = new int[n];
+		for (int v = 0; v < n; v++) {
+			label[v] = graph.label(v);
+		}
+		if (n == 0) {
+			return UndirectedGraph.fromEdges(0, label, new int[0], new int[0],
+					new int[0], 0);
+		}
+
+		int capacity = (int) Math.min((long) k * (n - 1), graph.lastEdge(n - 1));
+		int[] a = new int[capacity];
+		int[] b = new int[capacity];
+		int[] w = new int[capacity];
+		int m = 0;
+
+		// the ordering restarts at an unordered vertex whenever the queue
+		// runs out of adjacent ones, one component after the other
+		BucketQueue queue = new BucketQueue(n);
+		for (int v = 0; v < n; v++) {
+			queue.insert(v, 0);
+		}
+		while (!queue.isEmpty()) {
+			int v = queue.extractMax();
+			for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+				int y = graph.neighbor(e);
+				if (!queue.contains(y)) {
+					continue;
+				}
+				int before = queue.key(y);
+				int keep = Math.min(graph.weight(e), k - before);
+				if (keep > 0) {
+					a[m] = v;
+					b[m] = y;
+					w[m++] = keep;
+				}
+				queue.increase(y, graph.weight(e));
+			}
+		}
+		return UndirectedGraph.fromEdges(n, label, a, b, w, m);
+	}
+}
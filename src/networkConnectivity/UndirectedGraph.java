@@ -0,0 +1,240 @@
+package networkConnectivity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.ics.jung.graph.UndirectedSparseMultigraph;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Undirected multigraph in compressed sparse row form: parallel edges are
+ * merged into one adjacency entry whose weight is their multiplicity, and
+ * self loops are dropped. Vertices are 0, ..., V() - 1; label(v) gives the
+ * vertex of the graph it was built from.
+ *
+ * @author LiP
+ *
+ */
+public class UndirectedGraph {
+
+	private final int n;
+	// adjacency of v is [start[v], start[v + 1]), sorted by neighbor
+	private final int[] start;
+	private final int[] neighbor;
+	private final int[] weight;
+	private final int[] label;
+
+	private UndirectedGraph(int n, int[] start, int[] neighbor, int[] weight,
+			int[] label) {
+		this.n = n;
+		this.start = start;
+		this.neighbor = neighbor;
+		this.weight = weight;
+		this.label = label;
+	}
+
+	/**
+	 * build from an edge matrix as used by createGraph(): edgeMatrix[i][j]
+	 * edges are added between i and j for every cell, so i and j are joined by
+	 * edgeMatrix[i][j] + edgeMatrix[j][i] edges
+	 *
+	 * @param edgeMatrix
+	 *            edge matrix
+	 * @return the graph, vertex v has label v
+	 */
+	public static UndirectedGraph fromEdgeMatrix(int[][] edgeMatrix) {
+		int n = edgeMatrix.length;
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				if (edgeMatrix[i][j] + edgeMatrix[j][i] > 0) {
+					count++;
+				}
+			}
+		}
+		int[] a = new int[count];
+		int[] b = new int[count];
+		int[] w = new int[count];
+		count = 0;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				if (edgeMatrix[i][j] + edgeMatrix[j][i] > 0) {
+					a[count] = i;
+					b[count] = j;
+					w[count++] = edgeMatrix[i][j] + edgeMatrix[j][i];
+				}
+			}
+		}
+		int[] label = new int[n];
+		for (int v = 0; v < n; v++) {
+			label[v] = v;
+		}
+		return fromEdges(n, label, a, b, w, count);
+	}
+
+	/**
+	 * build from a JUNG multigraph
+	 *
+	 * @param graph
+	 *            input graph
+	 * @return the graph, vertices are numbered in the iteration order of
+	 *         graph.getVertices()
+	 */
+	public static UndirectedGraph fromGraph(
+			UndirectedSparseMultigraph<Integer, UndirectedEdge> graph) {
+		List<Integer> vertices = new ArrayList<Integer>(graph.getVertices());
+		int n = vertices.size();
+		int[] label = new int[n];
+		Map<Integer, Integer> index = new HashMap<Integer, Integer>();
+		for (int v = 0; v < n; v++) {
+			label[v] = vertices.get(v);
+			index.put(vertices.get(v), v);
+		}
+
+		int m = graph.getEdgeCount();
+		int[] a = new int[m];
+		int[] b = new int[m];
+		int[] w = new int[m];
+		int count = 0;
+		for (UndirectedEdge e : graph.getEdges()) {
+			Pair<Integer> endpoints = graph.getEndpoints(e);
+			a[count] = index.get(endpoints.getFirst());
+			b[count] = index.get(endpoints.getSecond());
+			w[count++] = 1;
+		}
+		return fromEdges(n, label, a, b, w, count);
+	}
+
+	/*
+	 * build from an edge list, merging parallel edges and dropping self loops
+	 */
+	static UndirectedGraph fromEdges(int n, int[] label, int[] a, int[] b,
+			int[] w, int m) {
+		// every edge as two arcs, counting sorted by head and then stably by
+		// tail, which leaves every row sorted by neighbor
+		int[] byHead = new int[n + 1];
+		int[] byTail = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			if (a[e] != b[e]) {
+				byHead[a[e] + 1]++;
+				byHead[b[e] + 1]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			byHead[v + 1] += byHead[v];
+		}
+		System.arraycopy(byHead, 0, byTail, 0, n + 1);
+		int arcs = byHead[n];
+		int[] tail = new int[arcs];
+		int[] arcWeight = new int[arcs];
+		int[] fill = Arrays.copyOf(byHead, n);
+		for (int e = 0; e < m; e++) {
+			if (a[e] != b[e]) {
+				int i = fill[b[e]]++;
+				tail[i] = a[e];
+				arcWeight[i] = w[e];
+				i = fill[a[e]]++;
+				tail[i] = b[e];
+				arcWeight[i] = w[e];
+			}
+		}
+		// arcs sit in head order, the tail of arc i is tail[i]
+		int[] rawNeighbor = new int[arcs];
+		int[] rawWeight = new int[arcs];
+		fill = Arrays.copyOf(byTail, n);
+		for (int h = 0; h < n; h++) {
+			for (int i = byHead[h]; i < byHead[h + 1]; i++) {
+				int slot = fill[tail[i]]++;
+				rawNeighbor[slot] = h;
+				rawWeight[slot] = arcWeight[i];
+			}
+		}
+
+		// merge runs of equal neighbors
+		int[] start = new int[n + 1];
+		int size = 0;
+		for (int v = 0; v < n; v++) {
+			start[v] = size;
+			for (int i = byTail[v]; i < byTail[v + 1]; i++) {
+				if (size > start[v] && rawNeighbor[size - 1] == rawNeighbor[i]) {
+					rawWeight[size - 1] += rawWeight[i];
+				} else {
+					rawNeighbor[size] = rawNeighbor[i];
+					rawWeight[size] = rawWeight[i];
+					size++;
+				}
+			}
+		}
+		start[n] = size;
+		return new UndirectedGraph(n, start, Arrays.copyOf(rawNeighbor, size),
+				Arrays.copyOf(rawWeight, size), label);
+	}
+
+	/*
+	 * getters
+	 */
+	public int V() {
+		return n;
+	}
+
+	public int firstEdge(int v) {
+		return start[v];
+	}
+
+	public int lastEdge(int v) {
+		return start[v + 1];
+	}
+
+	public int neighbor(int e) {
+		return neighbor[e];
+	}
+
+	/**
+	 * @param e
+	 *            adjacency slot
+	 * @return number of parallel edges the slot stands for
+	 */
+	public int weight(int e) {
+		return weight[e];
+	}
+
+	public int label(int v) {
+		return label[v];
+	}
+
+	/**
+	 * @return adjacency slot of w in the row of v, or -1 if they are not
+	 *         adjacent
+	 */
+	public int findEdge(int v, int w) {
+		int lo = start[v];
+		int hi = start[v + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (neighbor[mid] < w) {
+				lo = mid + 1;
+			} else if (neighbor[mid] > w) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param v
+	 *            vertex
+	 * @return number of edges incident to v, parallel edges counted
+	 */
+	public int degree(int v) {
+		int result = 0;
+		for (int e = start[v]; e < start[v + 1]; e++) {
+			result += weight[e];
+		}
+		return result;
+	}
+}
@@ -0,0 +1,387 @@
+package networkConnectivity;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vertex connectivity kappa of an UndirectedGraph, the fewest vertices whose
+ * removal disconnects it, n - 1 for a complete graph. Parallel edges do not
+ * matter here.
+ *
+ * kappa(s, t) for non adjacent s and t is a maximum flow in the split network:
+ * every vertex x becomes an arc x_in -> x_out of capacity 1, and every edge
+ * x-y the arcs x_out -> y_in and y_out -> x_in, all flows running from s_out
+ * to t_in. Even's algorithm needs few pairs: of any kappa + 1 vertices one
+ * lies outside a minimum separator and has a non neighbor on its far side,
+ * so it suffices to take the vertices v_0, v_1, ... in turn, as long as i
+ * does not exceed the best value found, and pair v_i with each of its non
+ * neighbors. The vertices are taken by increasing degree, since kappa is at
+ * most the minimum degree. All flows of one v_i are independent and run in
+ * parallel, each stopped at the best value found so far.
+ *
+ * @author LiP
+ *
+ */
+public class VertexConnectivity {
+
+	// flow stopped at the best value, kappa(s, t) is at least that
+	private static final int CAPPED = -1;
+
+	private final int kappa;
+	private final int[] separator;
+
+	/**
+	 * @param graph
+	 *            input graph
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 */
+	public VertexConnectivity(UndirectedGraph graph, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		int n = graph.V();
+		SplitNetwork network = new SplitNetwork(graph);
+
+		Integer[] byDegree = new Integer[n];
+		for (int v = 0; v < n; v++) {
+			byDegree[v] = v;
+		}
+		final int[] neighbors = new int[n];
+		for (int v = 0; v < n; v++) {
+			neighbors[v] = graph.lastEdge(v) - graph.firstEdge(v);
+		}
+		Arrays.sort(byDegree, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return neighbors[a] != neighbors[b] ? neighbors[a]
+						- neighbors[b] : a - b;
+			}
+		});
+
+		AtomicInteger best = new AtomicInteger(Math.max(0, n - 1));
+		for (int v = 0; v < n; v++) {
+			best.set(Math.min(best.get(), neighbors[v]));
+		}
+		// pair with the smallest exact flow, the witness for the separator
+		int bestSource = -1;
+		int bestSink = -1;
+		int bestValue = best.get() + 1;
+		int[] sinks = new int[n];
+		int[] value = new int[n];
+		ForkJoinPool pool = parallelism == 1 ? null : new ForkJoinPool(
+				parallelism);
+		try {
+			for (int i = 0; i < n && i <= best.get(); i++) {
+				int s = byDegree[i];
+				int count = 0;
+				for (int t = 0; t < n; t++) {
+					if (t != s && graph.findEdge(s, t) == -1) {
+						sinks[count++] = t;
+					}
+				}
+				if (pool == null) {
+					new FlowTask(network, s, sinks, value, best, 0, count,
+							count).compute();
+				} else {
+					int grain = Math.max(1, count / (4 * parallelism));
+					pool.invoke(new FlowTask(network, s, sinks, value, best, 0,
+							count, grain));
+				}
+				for (int k = 0; k < count; k++) {
+					if (value[k] != CAPPED && value[k] < bestValue) {
+						bestValue = value[k];
+						bestSource = s;
+						bestSink = sinks[k];
+					}
+				}
+			}
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+		kappa = best.get();
+
+		if (bestSource == -1) {
+			// no pair below the degree bound: a complete graph, or the
+			// neighbors of a vertex of minimum degree
+			if (n == 0 || kappa == n - 1) {
+				separator = new int[Math.max(0, n - 1)];
+				for (int v = 0; v < separator.length; v++) {
+					separator[v] = v;
+				}
+			} else {
+				int v = byDegree[0];
+				separator = new int[neighbors[v]];
+				int count = 0;
+				for (int e = graph.firstEdge(v); e < graph.lastEdge(v); e++) {
+					separator[count++] = graph.neighbor(e);
+				}
+			}
+		} else {
+			separator = network.separator(bestSource, bestSink, kappa);
+		}
+	}
+
+	/*
+	 * getters
+	 */
+	public int getKappa() {
+		return kappa;
+	}
+
+	/**
+	 * @return kappa vertices whose removal disconnects the graph, increasing
+	 *         (all but the last vertex for a complete graph)
+	 */
+	public int[] getSeparator() {
+		return separator;
+	}
+
+	/*
+	 * split network with Dinic's algorithm; vertex x is x_in = 2x and x_out =
+	 * 2x + 1, arcs come in pairs e, e ^ 1 of forward and residual arc
+	 */
+	private static class SplitNetwork {
+		private final int nodes;
+		private final int[] first;
+		private final int[] head;
+		private final int[] capacity;
+		private final int[] reverse;
+		private final int[] flow;
+		private final int[] level;
+		private final int[] next;
+		private final int[] queue;
+		private final int[] path;
+
+		SplitNetwork(UndirectedGraph graph) {
+			int n = graph.V();
+			nodes = 2 * n;
+			int arcs = 2 * n + 2 * (n == 0 ? 0 : graph.lastEdge(n - 1));
+			int[] tail = new int[arcs];
+			head = new int[arcs];
+			capacity = new int[arcs];
+			int count = 0;
+			// vertex arcs carry 1, edge arcs n, more than any cut, so a
+			// minimum cut is made of vertex arcs only
+			for (int x = 0; x < n; x++) {
+				count = pair(tail, count, 2 * x, 2 * x + 1, 1);
+				for (int e = graph.firstEdge(x); e < graph.lastEdge(x); e++) {
+					count = pair(tail, count, 2 * x + 1,
+							2 * graph.neighbor(e), n);
+				}
+			}
+
+			// arcs grouped by tail node, keeping pairs adjacent through an
+			// index
+			first = new int[nodes + 1];
+			for (int a = 0; a < arcs; a++) {
+				first[tail[a] + 1]++;
+			}
+			for (int v = 0; v < nodes; v++) {
+				first[v + 1] += first[v];
+			}
+			int[] fill = Arrays.copyOf(first, nodes);
+			int[] position = new int[arcs];
+			for (int a = 0; a < arcs; a++) {
+				position[a] = fill[tail[a]]++;
+			}
+			int[] sortedHead = new int[arcs];
+			int[] sortedCapacity = new int[arcs];
+			int[] partner = new int[arcs];
+			for (int a = 0; a < arcs; a++) {
+				sortedHead[position[a]] = head[a];
+				sortedCapacity[position[a]] = capacity[a];
+				partner[position[a]] = position[a ^ 1];
+			}
+			System.arraycopy(sortedHead, 0, head, 0, arcs);
+			System.arraycopy(sortedCapacity, 0, capacity, 0, arcs);
+			reverse = partner;
+
+			flow = new int[arcs];
+			level = new int[nodes];
+			next = new int[nodes];
+			queue = new int[nodes];
+			path = new int[nodes];
+		}
+
+		/*
+		 * second workspace over the same network
+		 */
+		SplitNetwork(SplitNetwork other) {
+			nodes = other.nodes;
+			first = other.first;
+			head = other.head;
+			capacity = other.capacity;
+			reverse = other.reverse;
+			flow = new int[head.length];
+			level = new int[nodes];
+			next = new int[nodes];
+			queue = new int[nodes];
+			path = new int[nodes];
+		}
+
+		private int pair(int[] tail, int count, int from, int to, int c) {
+			tail[count] = from;
+			head[count] = to;
+			capacity[count++] = c;
+			tail[count] = to;
+			head[count] = from;
+			capacity[count++] = 0;
+			return count;
+		}
+
+		/**
+		 * @return min(kappa(s, t), limit) for non adjacent s and t
+		 */
+		int maxFlow(int s, int t, int limit) {
+			Arrays.fill(flow, 0);
+			int source = 2 * s + 1;
+			int sink = 2 * t;
+			int total = 0;
+			while (total < limit && levels(source, sink)) {
+				total += blockingFlow(source, sink, limit - total);
+			}
+			return total;
+		}
+
+		/**
+		 * vertices x with x_in on the source side of a minimum cut and x_out
+		 * not
+		 */
+		int[] separator(int s, int t, int kappa) {
+			maxFlow(s, t, kappa + 1);
+			levels(2 * s + 1, 2 * t);
+			int[] result = new int[kappa];
+			int count = 0;
+			for (int x = 0; x < nodes / 2; x++) {
+				if (level[2 * x] != -1 && level[2 * x + 1] == -1) {
+					if (count == kappa) {
+						throw new IllegalStateException(
+								"separator is larger than kappa");
+					}
+					result[count++] = x;
+				}
+			}
+			if (count != kappa) {
+				throw new IllegalStateException(
+						"separator is smaller than kappa");
+			}
+			return result;
+		}
+
+		private boolean levels(int source, int sink) {
+			Arrays.fill(level, -1);
+			level[source] = 0;
+			queue[0] = source;
+			int tail = 1;
+			for (int h = 0; h < tail; h++) {
+				int v = queue[h];
+				for (int a = first[v]; a < first[v + 1]; a++) {
+					if (level[head[a]] == -1 && capacity[a] - flow[a] > 0) {
+						level[head[a]] = level[v] + 1;
+						queue[tail++] = head[a];
+					}
+				}
+			}
+			return level[sink] != -1;
+		}
+
+		/*
+		 * one unit per path; an arc with room left stays the current arc of
+		 * its node and is taken again
+		 */
+		private int blockingFlow(int source, int sink, int limit) {
+			System.arraycopy(first, 0, next, 0, nodes);
+			int total = 0;
+			int depth = 0;
+			int v = source;
+			while (total < limit) {
+				if (v == sink) {
+					for (int i = 0; i < depth; i++) {
+						flow[path[i]]++;
+						flow[reverse[path[i]]]--;
+					}
+					total++;
+					depth = 0;
+					v = source;
+					continue;
+				}
+				int a = next[v];
+				while (a < first[v + 1]
+						&& (capacity[a] - flow[a] == 0
+								|| level[head[a]] != level[v] + 1)) {
+					a++;
+				}
+				next[v] = a;
+				if (a < first[v + 1]) {
+					path[depth++] = a;
+					v = head[a];
+				} else if (v == source) {
+					break;
+				} else {
+					level[v] = -1;
+					depth--;
+					v = head[reverse[path[depth]]];
+					next[v]++;
+				}
+			}
+			return total;
+		}
+	}
+
+	/*
+	 * flows from s to sinks [lo, hi), every leaf with its own workspace
+	 */
+	@SuppressWarnings("serial")
+	private static class FlowTask extends RecursiveAction {
+		private final SplitNetwork network;
+		private final int s;
+		private final int[] sinks;
+		private final int[] value;
+		private final AtomicInteger best;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		FlowTask(SplitNetwork network, int s, int[] sinks, int[] value,
+				AtomicInteger best, int lo, int hi, int grain) {
+			this.network = network;
+			this.s = s;
+			this.sinks = sinks;
+			this.value = value;
+			this.best = best;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new FlowTask(network, s, sinks, value, best, lo,
+						mid, grain), new FlowTask(network, s, sinks, value,
+						best, mid, hi, grain));
+				return;
+			}
+			SplitNetwork workspace = new SplitNetwork(network);
+			for (int k = lo; k < hi; k++) {
+				int limit = best.get();
+				int flow = workspace.maxFlow(s, sinks[k], limit);
+				if (flow == limit) {
+					value[k] = CAPPED;
+					continue;
+				}
+				value[k] = flow;
+				while (flow < limit && !best.compareAndSet(limit, flow)) {
+					limit = best.get();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,611 @@
+package networkReliability;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact network reliability by the factoring theorem: for a link e with
+ * reliability p, R(G) = p R(G / e) + (1 - p) R(G - e), contracting e in one
+ * branch and deleting it in the other. R is the probability that the up links
+ * connect all terminals, all nodes unless given otherwise.
+ *
+ * Before every branch the graph is reduced as far as possible, each step
+ * preserving the reliability up to a known factor:
+ * <ul>
+ * <li>links of reliability 0 are deleted, of reliability 1 contracted;</li>
+ * <li>parallel links merge into one of reliability 1 - q1 q2;</li>
+ * <li>components without a terminal are irrelevant and dropped, terminals in
+ * two components give 0;</li>
+ * <li>the blocks (biconnected components) are solved apart and multiplied:
+ * a leaf block with no terminal but its cut node is irrelevant, and every
+ * other cut node becomes a terminal of its blocks;</li>
+ * <li>a pendant node is dropped, with its link's reliability as a factor and
+ * its neighbor as a new terminal if it was a terminal itself;</li>
+ * <li>series: a non terminal node of degree 2 becomes one link of reliability
+ * p1 p2 between its neighbors;</li>
+ * <li>degree 2: a terminal node of degree 2 with terminal neighbors becomes
+ * one link of reliability p1 p2 / (1 - q1 q2), with 1 - q1 q2 as a factor.</li>
+ * </ul>
+ * The reduced graphs are relabeled in the order of their original nodes, so
+ * the same subgraph reached by different branches, e.g. deleting e then f or
+ * f then e, has the same form, and its reliability is cached under it. The
+ * blocks matter most there: a deletion that cuts the graph turns a product of
+ * two branchings into a sum, and the small blocks recur.
+ *
+ * Sparse, ring like networks mostly reduce away, so hundreds of links are
+ * fine; the work grows with the number of links left after the reductions.
+ *
+ * @author LiP
+ *
+ */
+public class FactoringReliability {
+
+	// longs held by the cache keys, 128 MB; further subgraphs are solved
+	// again when they recur
+	private static final long MAX_CACHE_WORDS = 1L << 24;
+
+	private final Graph network;
+	private final Map<Key, Double> cache = new HashMap<Key, Double>();
+	private long cacheWords;
+	private long branches;
+	private long cacheHits;
+
+	/**
+	 * all nodes are terminals
+	 *
+	 * @param nodes
+	 *            number of nodes, numbered from 0
+	 * @param from
+	 *            first end node of every link
+	 * @param to
+	 *            second end node of every link
+	 * @param reliability
+	 *            probability that a link is up
+	 */
+	public FactoringReliability(int nodes, int[] from, int[] to,
+			double[] reliability) {
+		this(nodes, from, to, reliability, allTerminals(nodes));
+	}
+
+	/**
+	 * @param nodes
+	 *            number of nodes, numbered from 0
+	 * @param from
+	 *            first end node of every link
+	 * @param to
+	 *            second end node of every link
+	 * @param reliability
+	 *            probability that a link is up
+	 * @param terminal
+	 *            nodes that must be connected
+	 */
+	public FactoringReliability(int nodes, int[] from, int[] to,
+			double[] reliability, boolean[] terminal) {
+		boolean[] alive = new boolean[nodes];
+		Arrays.fill(alive, true);
+		network = Graph.normalize(nodes, alive, terminal.clone(), from, to,
+				reliability, from.length);
+	}
+
+	private static boolean[] allTerminals(int nodes) {
+		boolean[] result = new boolean[nodes];
+		Arrays.fill(result, true);
+		return result;
+	}
+
+	/*
+	 * getters
+	 */
+	public long getBranches() {
+		return branches;
+	}
+
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * @return probability that the up links connect all terminals
+	 */
+	public double reliability() {
+		return solve(network);
+	}
+
+	private double solve(Graph graph) {
+		double[] factor = { 1 };
+		Graph reduced = graph;
+		for (Graph next = reduce(reduced, factor); next != reduced; next = reduce(
+				reduced, factor)) {
+			if (next == null) {
+				return 0;
+			}
+			reduced = next;
+		}
+		if (reduced.terminals() <= 1) {
+			return factor[0];
+		}
+		List<Graph> blocks = reduced.blocks();
+		if (blocks != null) {
+			double result = factor[0];
+			for (Graph block : blocks) {
+				result *= solve(block);
+			}
+			return result;
+		}
+
+		Key key = new Key(reduced);
+		Double cached = cache.get(key);
+		if (cached != null) {
+			cacheHits++;
+			return factor[0] * cached;
+		}
+
+		branches++;
+		int e = reduced.branchLink();
+		double p = reduced.p[e];
+		double result = p * solve(reduced.withLink(e, 1)) + (1 - p)
+				* solve(reduced.withLink(e, 0));
+		if (cacheWords + key.data.length <= MAX_CACHE_WORDS) {
+			cache.put(key, result);
+			cacheWords += key.data.length;
+		}
+		return factor[0] * result;
+	}
+
+	/*
+	 * one round of reductions, see the class comment; multiplies their
+	 * factors into factor[0] and returns the same graph if none applied, or
+	 * null if the reliability is 0
+	 */
+	private static Graph reduce(Graph graph, double[] factor) {
+		int n = graph.n;
+		int m = graph.m;
+		boolean[] terminal = graph.terminal.clone();
+		boolean[] alive = new boolean[n];
+		Arrays.fill(alive, true);
+		boolean changed = false;
+
+		// components: terminals must share one, the others are irrelevant
+		int[] parent = new int[n];
+		for (int v = 0; v < n; v++) {
+			parent[v] = v;
+		}
+		for (int e = 0; e < m; e++) {
+			int a = find(parent, graph.a[e]);
+			int b = find(parent, graph.b[e]);
+			if (a != b) {
+				parent[a] = b;
+			}
+		}
+		int terminalRoot = -1;
+		for (int v = 0; v < n; v++) {
+			if (terminal[v]) {
+				int r = find(parent, v);
+				if (terminalRoot == -1) {
+					terminalRoot = r;
+				} else if (r != terminalRoot) {
+					return null;
+				}
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			if (find(parent, v) != terminalRoot) {
+				alive[v] = false;
+				changed = true;
+			}
+		}
+		if (graph.terminals() <= 1) {
+			return changed ? Graph.normalize(n, alive, terminal, graph.a,
+					graph.b, graph.p, m) : graph;
+		}
+
+		// pendant, series and degree 2 nodes, at most one reduction per node
+		// and its neighbors in a round
+		int[] first = new int[n + 1];
+		for (int e = 0; e < m; e++) {
+			first[graph.a[e] + 1]++;
+			first[graph.b[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			first[v + 1] += first[v];
+		}
+		int[] fill = Arrays.copyOf(first, n);
+		int[] incident = new int[2 * m];
+		for (int e = 0; e < m; e++) {
+			incident[fill[graph.a[e]]++] = e;
+			incident[fill[graph.b[e]]++] = e;
+		}
+
+		boolean[] dirty = new boolean[n];
+		boolean[] removed = new boolean[m];
+		int[] ea = Arrays.copyOf(graph.a, 2 * m);
+		int[] eb = Arrays.copyOf(graph.b, 2 * m);
+		double[] ep = Arrays.copyOf(graph.p, 2 * m);
+		int count = m;
+		for (int v = 0; v < n; v++) {
+			int degree = first[v + 1] - first[v];
+			if (!alive[v] || dirty[v] || degree == 0 || degree > 2) {
+				continue;
+			}
+			int e1 = incident[first[v]];
+			int u = graph.other(e1, v);
+			if (dirty[u]) {
+				continue;
+			}
+			if (degree == 1) {
+				if (terminal[v]) {
+					factor[0] *= graph.p[e1];
+					terminal[u] = true;
+				}
+				removed[e1] = true;
+				alive[v] = false;
+				dirty[v] = dirty[u] = true;
+				changed = true;
+				continue;
+			}
+			int e2 = incident[first[v] + 1];
+			int w = graph.other(e2, v);
+			if (dirty[w]) {
+				continue;
+			}
+			double p1 = graph.p[e1];
+			double p2 = graph.p[e2];
+			double link;
+			if (!terminal[v]) {
+				link = p1 * p2;
+			} else if (terminal[u] && terminal[w]) {
+				double omega = 1 - (1 - p1) * (1 - p2);
+				factor[0] *= omega;
+				link = p1 * p2 / omega;
+			} else {
+				continue;
+			}
+			removed[e1] = removed[e2] = true;
+			alive[v] = false;
+			ea[count] = u;
+			eb[count] = w;
+			ep[count] = link;
+			count++;
+			dirty[v] = dirty[u] = dirty[w] = true;
+			changed = true;
+		}
+		if (!changed) {
+			return graph;
+		}
+		for (int e = 0; e < m; e++) {
+			if (removed[e]) {
+				ep[e] = 0;
+			}
+		}
+		return Graph.normalize(n, alive, terminal, ea, eb, ep, count);
+	}
+
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	/*
+	 * immutable reduced graph: nodes 0 .. n - 1, links sorted by end nodes a <
+	 * b, no loops, no parallel links, every reliability strictly between 0
+	 * and 1
+	 */
+	private static class Graph {
+		private final int n;
+		private final boolean[] terminal;
+		private final int m;
+		private final int[] a;
+		private final int[] b;
+		private final double[] p;
+
+		private Graph(int n, boolean[] terminal, int[] a, int[] b, double[] p) {
+			this.n = n;
+			this.terminal = terminal;
+			this.m = a.length;
+			this.a = a;
+			this.b = b;
+			this.p = p;
+		}
+
+		/*
+		 * drop the dead nodes and the links of reliability 0 or with a dead
+		 * end, contract the links of reliability 1, merge parallel links,
+		 * and number the nodes left in their old order
+		 */
+		static Graph normalize(int n, boolean[] alive, boolean[] terminal,
+				int[] from, int[] to, double[] reliability, int count) {
+			int[] parent = new int[n];
+			for (int v = 0; v < n; v++) {
+				parent[v] = v;
+			}
+			for (int e = 0; e < count; e++) {
+				if (reliability[e] >= 1 && alive[from[e]] && alive[to[e]]) {
+					int x = find(parent, from[e]);
+					int y = find(parent, to[e]);
+					// the smaller node represents the merged one
+					if (x != y) {
+						parent[Math.max(x, y)] = Math.min(x, y);
+					}
+				}
+			}
+			int[] label = new int[n];
+			int k = 0;
+			for (int v = 0; v < n; v++) {
+				if (alive[v] && find(parent, v) == v) {
+					label[v] = k++;
+				}
+			}
+			boolean[] mergedTerminal = new boolean[k];
+			for (int v = 0; v < n; v++) {
+				if (alive[v] && terminal[v]) {
+					mergedTerminal[label[find(parent, v)]] = true;
+				}
+			}
+
+			// (a, b) keys of the links left, sorted with their reliability
+			long[] keys = new long[count];
+			int kept = 0;
+			for (int e = 0; e < count; e++) {
+				if (reliability[e] <= 0 || reliability[e] >= 1
+						|| !alive[from[e]] || !alive[to[e]]) {
+					continue;
+				}
+				int x = label[find(parent, from[e])];
+				int y = label[find(parent, to[e])];
+				if (x == y) {
+					continue;
+				}
+				keys[kept++] = ((long) Math.min(x, y) << 42)
+						| ((long) Math.max(x, y) << 21) | e;
+			}
+			Arrays.sort(keys, 0, kept);
+			int[] a = new int[kept];
+			int[] b = new int[kept];
+			double[] p = new double[kept];
+			int m = 0;
+			for (int i = 0; i < kept; i++) {
+				int x = (int) (keys[i] >>> 42);
+				int y = (int) (keys[i] >>> 21) & 0x1FFFFF;
+				double q = 1 - reliability[(int) keys[i] & 0x1FFFFF];
+				if (m > 0 && a[m - 1] == x && b[m - 1] == y) {
+					// parallel links fail only together
+					p[m - 1] = 1 - (1 - p[m - 1]) * q;
+				} else {
+					a[m] = x;
+					b[m] = y;
+					p[m] = 1 - q;
+					m++;
+				}
+			}
+			return new Graph(k, mergedTerminal, Arrays.copyOf(a, m),
+					Arrays.copyOf(b, m), Arrays.copyOf(p, m));
+		}
+
+		int terminals() {
+			int result = 0;
+			for (boolean t : terminal) {
+				if (t) {
+					result++;
+				}
+			}
+			return result;
+		}
+
+		int other(int e, int v) {
+			return a[e] == v ? b[e] : a[e];
+		}
+
+		/*
+		 * a link of a node of smallest degree, to its neighbor of smallest
+		 * degree, so that both branches are likely to reduce again
+		 */
+		int branchLink() {
+			int[] degree = new int[n];
+			for (int e = 0; e < m; e++) {
+				degree[a[e]]++;
+				degree[b[e]]++;
+			}
+			// smallest end degree first, then smallest degree sum
+			int best = 0;
+			long bestRank = Long.MAX_VALUE;
+			for (int e = 0; e < m; e++) {
+				long rank = ((long) Math.min(degree[a[e]], degree[b[e]]) << 32)
+						+ degree[a[e]] + degree[b[e]];
+				if (rank < bestRank) {
+					best = e;
+					bestRank = rank;
+				}
+			}
+			return best;
+		}
+
+		/*
+		 * the relevant blocks, each with its cut nodes as terminals, or null
+		 * if the graph is a single block; the graph must be connected
+		 */
+		List<Graph> blocks() {
+			int[] first = new int[n + 1];
+			for (int e = 0; e < m; e++) {
+				first[a[e] + 1]++;
+				first[b[e] + 1]++;
+			}
+			for (int v = 0; v < n; v++) {
+				first[v + 1] += first[v];
+			}
+			int[] next = Arrays.copyOf(first, n);
+			int[] incident = new int[2 * m];
+			for (int e = 0; e < m; e++) {
+				incident[next[a[e]]++] = e;
+				incident[next[b[e]]++] = e;
+			}
+			System.arraycopy(first, 0, next, 0, n);
+
+			// iterative Tarjan, every block as a run of the link stack
+			int[] discovered = new int[n];
+			Arrays.fill(discovered, -1);
+			int[] low = new int[n];
+			int[] parentLink = new int[n];
+			int[] stack = new int[n];
+			int[] links = new int[m];
+			int linkCount = 0;
+			int[] block = new int[m];
+			int blockCount = 0;
+			int time = 0;
+			int top = 0;
+			stack[top++] = 0;
+			discovered[0] = low[0] = time++;
+			parentLink[0] = -1;
+			while (top > 0) {
+				int v = stack[top - 1];
+				if (next[v] < first[v + 1]) {
+					int e = incident[next[v]++];
+					if (e == parentLink[v]) {
+						continue;
+					}
+					int w = other(e, v);
+					if (discovered[w] == -1) {
+						links[linkCount++] = e;
+						parentLink[w] = e;
+						discovered[w] = low[w] = time++;
+						stack[top++] = w;
+					} else if (discovered[w] < discovered[v]) {
+						links[linkCount++] = e;
+						low[v] = Math.min(low[v], discovered[w]);
+					}
+					continue;
+				}
+				top--;
+				if (parentLink[v] == -1) {
+					continue;
+				}
+				int u = other(parentLink[v], v);
+				low[u] = Math.min(low[u], low[v]);
+				if (low[v] >= discovered[u]) {
+					int e;
+					do {
+						e = links[--linkCount];
+						block[e] = blockCount;
+					} while (e != parentLink[v]);
+					blockCount++;
+				}
+			}
+			if (blockCount <= 1) {
+				return null;
+			}
+
+			// nodes of every block and the number of blocks at every node
+			boolean[][] member = new boolean[blockCount][n];
+			int[] blocksAt = new int[n];
+			for (int e = 0; e < m; e++) {
+				for (int v : new int[] { a[e], b[e] }) {
+					if (!member[block[e]][v]) {
+						member[block[e]][v] = true;
+						blocksAt[v]++;
+					}
+				}
+			}
+
+			// drop leaf blocks without a terminal of their own, repeatedly
+			boolean[] dropped = new boolean[blockCount];
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (int k = 0; k < blockCount; k++) {
+					if (dropped[k]) {
+						continue;
+					}
+					int cuts = 0;
+					boolean own = false;
+					for (int v = 0; v < n; v++) {
+						if (member[k][v]) {
+							if (blocksAt[v] > 1) {
+								cuts++;
+							} else if (terminal[v]) {
+								own = true;
+							}
+						}
+					}
+					if (cuts == 1 && !own) {
+						dropped[k] = true;
+						for (int v = 0; v < n; v++) {
+							if (member[k][v]) {
+								blocksAt[v]--;
+							}
+						}
+						changed = true;
+					}
+				}
+			}
+
+			List<Graph> result = new ArrayList<Graph>();
+			for (int k = 0; k < blockCount; k++) {
+				if (dropped[k]) {
+					continue;
+				}
+				boolean[] blockTerminal = new boolean[n];
+				for (int v = 0; v < n; v++) {
+					blockTerminal[v] = member[k][v]
+							&& (terminal[v] || blocksAt[v] > 1);
+				}
+				double[] q = new double[m];
+				for (int e = 0; e < m; e++) {
+					q[e] = block[e] == k ? p[e] : 0;
+				}
+				result.add(normalize(n, member[k], blockTerminal, a, b, q, m));
+			}
+			return result;
+		}
+
+		/*
+		 * the graph with link e at reliability 1 (contracted) or 0 (deleted)
+		 */
+		Graph withLink(int e, double reliability) {
+			boolean[] alive = new boolean[n];
+			Arrays.fill(alive, true);
+			double[] q = p.clone();
+			q[e] = reliability;
+			return normalize(n, alive, terminal.clone(), a, b, q, m);
+		}
+	}
+
+	/*
+	 * the whole reduced graph as a cache key
+	 */
+	private static class Key {
+		private final long[] data;
+		private final int hash;
+
+		Key(Graph graph) {
+			data = new long[2 + (graph.n + 63) / 64 + 2 * graph.m];
+			data[0] = graph.n;
+			data[1] = graph.m;
+			for (int v = 0; v < graph.n; v++) {
+				if (graph.terminal[v]) {
+					data[2 + v / 64] |= 1L << v;
+				}
+			}
+			int i = 2 + (graph.n + 63) / 64;
+			for (int e = 0; e < graph.m; e++) {
+				data[i++] = ((long) graph.a[e] << 32) | graph.b[e];
+				data[i++] = Double.doubleToLongBits(graph.p[e]);
+			}
+			hash = Arrays.hashCode(data);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(data, ((Key) o).data);
+		}
+	}
+}
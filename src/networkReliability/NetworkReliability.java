@@ -10,7 +10,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.Stack;
 
 import javax.swing.JFrame;
 
@@ -34,10 +33,14 @@ public class NetworkReliability {
 
 	// network representation (a complete undirected graph)
 	private UndirectedSparseGraph<Integer, NetworkLink> network;
-	// network states representation (each entry in the map is a single state of
-	// the network, key is the network representation, value indicates the
-	// network status (UP or DOWN))
-	private Map<UndirectedSparseGraph<Integer, NetworkLink>, Boolean> networkStates;
+	// the links as end node indices and reliabilities
+	private int[] from;
+	private int[] to;
+	private double[] reliability;
+	// network states, each a bitmask over the links, see StateEnumerator;
+	// created and enumerated on the first request for the reliability
+	private StateEnumerator networkStates;
+	private boolean enumerated;
 
 	/**
 	 * constructor
@@ -49,25 +52,45 @@ public class NetworkReliability {
 	 *            identical reliability
 	 */
 	public NetworkReliability(int numOfNodes, double reliability) {
-		this.network = constructCompleteNetwork(numOfNodes, reliability);
+		this(constructCompleteNetwork(numOfNodes, reliability));
+	}
+
+	/**
+	 * constructor for any network topology
+	 * 
+	 * @param network
+	 *            : network with the reliability of every link; enumeration
+	 *            takes at most StateEnumerator.MAX_LINKS links, factoring any
+	 *            number
+	 */
+	public NetworkReliability(UndirectedSparseGraph<Integer, NetworkLink> network) {
+		this.network = network;
 
+		Map<Integer, Integer> index = new HashMap<Integer, Integer>();
+		for (Integer node : network.getVertices()) {
+			index.put(node, index.size());
+		}
 		List<NetworkLink> allLinks = new ArrayList<NetworkLink>(
 				network.getEdges());
-		List<List<NetworkLink>> allLinksSubSet = linksSubSet(allLinks);
-
-		networkStates = new HashMap<UndirectedSparseGraph<Integer, NetworkLink>, Boolean>();
+		int m = allLinks.size();
+		from = new int[m];
+		to = new int[m];
+		reliability = new double[m];
+		for (int i = 0; i < m; i++) {
+			Pair<Integer> nodes = network.getEndpoints(allLinks.get(i));
+			from[i] = index.get(nodes.getFirst());
+			to[i] = index.get(nodes.getSecond());
+			reliability[i] = allLinks.get(i).getReliability();
+		}
 
-		for (List<NetworkLink> links : allLinksSubSet) {
-			UndirectedSparseGraph<Integer, NetworkLink> event = constructCompleteNetwork(
-					numOfNodes, reliability);
-			for (NetworkLink link : links) {
-				Pair<Integer> nodes = network.getEndpoints(link);
-				event.findEdge(nodes.getFirst(), nodes.getSecond())
-						.setLinkDown();
-			}
+	}
 
-			networkStates.put(event, isConnected(event));
+	private StateEnumerator networkStates() {
+		if (networkStates == null) {
+			networkStates = new StateEnumerator(network.getVertexCount(),
+					from, to, reliability);
 		}
+		return networkStates;
 	}
 
 	/**
@@ -76,14 +99,34 @@ public class NetworkReliability {
 	 * @return
 	 */
 	public double networkReliability() {
-		double result = 0;
-		for (UndirectedSparseGraph<Integer, NetworkLink> graph : networkStates
-				.keySet()) {
-			if (networkStates.get(graph)) {
-				result += reliability(graph);
-			}
+		if (!enumerated) {
+			networkStates().enumerateGrayCode(Runtime.getRuntime()
+					.availableProcessors());
+			enumerated = true;
 		}
-		return result;
+		return networkStates.getNetworkReliability();
+	}
+
+	/**
+	 * count the connected states by number of up links once, which gives the
+	 * network reliability for any common link reliability
+	 * 
+	 * @return reliability polynomial of the network
+	 */
+	public ReliabilityPolynomial reliabilityPolynomial() {
+		return ReliabilityPolynomial.compute(networkStates(), Runtime
+				.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * calculate network reliability by factoring, see FactoringReliability;
+	 * the same value as networkReliability() without enumerating the states
+	 * 
+	 * @return
+	 */
+	public double networkReliabilityFactoring() {
+		return new FactoringReliability(network.getVertexCount(), from, to,
+				reliability).reliability();
 	}
 
 	/**
@@ -94,29 +137,26 @@ public class NetworkReliability {
 	 */
 	public double networkReliabilityFlipped(int k) {
 
-		Set<UndirectedSparseGraph<Integer, NetworkLink>> flippedStates = new HashSet<UndirectedSparseGraph<Integer, NetworkLink>>();
+		Set<Long> flippedStates = new HashSet<Long>();
 
 		Random random = new Random();
-		List<UndirectedSparseGraph<Integer, NetworkLink>> keys = new ArrayList<UndirectedSparseGraph<Integer, NetworkLink>>(
-				networkStates.keySet());
+		// the state count is a power of two
+		long mask = networkStates().getStateCount() - 1;
 
+		double result = networkReliability();
 		while (flippedStates.size() < k) {
-			UndirectedSparseGraph<Integer, NetworkLink> randomKey = keys
-					.get(random.nextInt(keys.size()));
-
-			if (!flippedStates.contains(randomKey)) {
-				flippedStates.add(randomKey);
-				networkStates.put(randomKey, !networkStates.get(randomKey)); // flip
+			long randomState = random.nextLong() & mask;
+
+			if (flippedStates.add(randomState)) {
+				// flip: an up state stops counting, a down state starts
+				if (networkStates.isConnected(randomState)) {
+					result -= networkStates.probability(randomState);
+				} else {
+					result += networkStates.probability(randomState);
+				}
 			}
 		}
 
-		double result = networkReliability();
-
-		// flip it back
-		for (UndirectedSparseGraph<Integer, NetworkLink> graph : flippedStates) {
-			networkStates.put(graph, !networkStates.get(graph)); // flip back
-		}
-
 		return result;
 	}
 
@@ -129,7 +169,7 @@ public class NetworkReliability {
 	 *            - reliability of network links
 	 * @return the constructed complete graph
 	 */
-	private UndirectedSparseGraph<Integer, NetworkLink> constructCompleteNetwork(
+	private static UndirectedSparseGraph<Integer, NetworkLink> constructCompleteNetwork(
 			int numOfNodes, double reliability) {
 
 		UndirectedSparseGraph<Integer, NetworkLink> result = new UndirectedSparseGraph<Integer, NetworkLink>();
@@ -149,115 +189,18 @@ public class NetworkReliability {
 		return result;
 	}
 
-	/**
-	 * find out all states
-	 * 
-	 * @param links
-	 * @return
-	 */
-	private List<List<NetworkLink>> linksSubSet(List<NetworkLink> links) {
-		List<List<NetworkLink>> result = new ArrayList<List<NetworkLink>>();
-		List<NetworkLink> list = new ArrayList<NetworkLink>();
-
-		if (links == null || links.size() == 0) {
-			return result;
-		}
-
-		subsetHelper(links, result, list, 0);
-		return result;
-	}
-
-	/*
-	 * helper function to find all possible states
-	 */
-	private void subsetHelper(List<NetworkLink> links,
-			List<List<NetworkLink>> result, List<NetworkLink> list, int index) {
-		result.add(new ArrayList<NetworkLink>(list));
-
-		for (int i = index; i < links.size(); i++) {
-			list.add(links.get(i));
-			subsetHelper(links, result, list, i + 1);
-			list.remove(list.size() - 1);
-		}
-	}
-
-	/**
-	 * use DFS to tell if the network is connected
-	 * 
-	 * @param graph
-	 * @return
-	 */
-	private boolean isConnected(
-			UndirectedSparseGraph<Integer, NetworkLink> graph) {
-		List<Integer> allNodes = new ArrayList<Integer>(graph.getVertices());
-		Integer startNode = allNodes.get(0);
-
-		Set<Integer> visited = new HashSet<Integer>();
-		Stack<Integer> stack = new Stack<Integer>();
-		stack.push(startNode);
-
-		while (!stack.empty()) {
-			Integer current = stack.pop();
-			if (!visited.contains(current)) {
-				visited.add(current);
-			}
-
-			List<Integer> neighbors = new ArrayList<Integer>(
-					graph.getNeighbors(current));
-
-			for (Integer neighbor : neighbors) {
-				if (!visited.contains(neighbor)
-						&& graph.findEdge(current, neighbor).isUp()) {
-					stack.push(neighbor);
-				}
-			}
-		}
-
-		return (visited.size() == graph.getVertexCount());
-
-	}
-
-	/*
-	 * calculate reliability of a single network state
-	 */
-	private static double reliability(
-			UndirectedSparseGraph<Integer, NetworkLink> graph) {
-		double result = 1;
-		List<NetworkLink> allLinks = new ArrayList<NetworkLink>(
-				graph.getEdges());
-		for (NetworkLink link : allLinks) {
-			if (link.isUp()) {
-				result *= link.getReliability();
-			} else {
-				result *= (1 - link.getReliability());
-			}
-		}
-
-		return result;
-	}
-
 	/**
 	 * network reliability instance reporting
 	 */
 	public void print() {
-		int upCount = 0;
-		int downCount = 0;
+		networkReliability();
+		long upCount = networkStates.getUpStates();
+		long downCount = networkStates.getStateCount() - upCount;
 
 		System.out.println("Number of nodes: " + network.getVertexCount()
 				+ "; Number of links: " + network.getEdgeCount()
-				+ "; Number of network states: " + networkStates.size() + ".");
-
-		for (UndirectedSparseGraph<Integer, NetworkLink> graph : networkStates
-				.keySet()) {
-			if (networkStates.get(graph)) {
-				upCount++;
-				// System.out.println(graph);
-				// System.out.println(networkStates.get(graph));
-				// visualizeGraph(graph);
-			} else {
-				downCount++;
-			}
-		}
+				+ "; Number of network states: "
+				+ networkStates.getStateCount() + ".");
 
 		System.out.println("Network up states count: " + upCount
 				+ ", network down states count: " + downCount + ".");
@@ -12,7 +12,9 @@ import com.opencsv.CSVWriter;
  * Telecommunication Networks
  * 
  * Experiment 1 calculate the given network reliability using exhaustive
- * enumeration for single link reliability ranging from 0 to 1.
+ * enumeration for single link reliability ranging from 0 to 1. The states are
+ * counted once into the reliability polynomial, which is then evaluated at
+ * every link reliability.
  * 
  * Experiment 2 calculate the network reliability after flipping randomly k
  * system states, k ranges from 0 to 30. To reduce the effect of randomness, for
@@ -45,16 +47,17 @@ public class Project3 {
 				.split(",");
 		writer.writeNext(header);
 
+		ReliabilityPolynomial experiment1 = new NetworkReliability(
+				NUM_OF_NODES, FIXED_RELIABILITY).reliabilityPolynomial();
 		for (double r = 0; r <= 1.01; r = r + 0.04) {
-			NetworkReliability experiment1 = new NetworkReliability(
-					NUM_OF_NODES, r);
+			double reliability = experiment1.evaluate(r);
 
 			writer.writeNext((formatter.format(r) + "," + formatter
-					.format(experiment1.networkReliability())).split(","));
+					.format(reliability)).split(","));
 
 			System.out.println("Link reliability is: " + formatter.format(r)
 					+ ", Network reliability is: "
-					+ formatter.format(experiment1.networkReliability()));
+					+ formatter.format(reliability));
 		}
 		writer.close();
 
@@ -0,0 +1,89 @@
+package networkReliability;
+
+/**
+ * All terminal reliability of a network whose links share one reliability p,
+ * as the polynomial R(p) = sum over i of N_i p^i (1 - p)^(m - i), where N_i is
+ * the number of connected states with i of the m links up. The exact counts
+ * N_i come from a single enumeration, after which R(p) costs O(m) for any p.
+ *
+ * @author LiP
+ *
+ */
+public class ReliabilityPolynomial {
+
+	private final long[] coefficients;
+
+	private ReliabilityPolynomial(long[] coefficients) {
+		this.coefficients = coefficients;
+	}
+
+	/**
+	 * count the coefficients, see StateEnumerator.countConnectedStates(); the
+	 * link reliabilities the enumerator was built with do not matter
+	 *
+	 * @param states
+	 *            state space of the network
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @return the polynomial
+	 */
+	public static ReliabilityPolynomial compute(StateEnumerator states,
+			int parallelism) {
+		return new ReliabilityPolynomial(
+				states.countConnectedStates(parallelism));
+	}
+
+	/*
+	 * getters
+	 */
+	public int getLinkCount() {
+		return coefficients.length - 1;
+	}
+
+	/**
+	 * @param i
+	 *            number of up links
+	 * @return N_i, number of connected states with i links up
+	 */
+	public long getCoefficient(int i) {
+		return coefficients[i];
+	}
+
+	/**
+	 * @param p
+	 *            reliability of every link
+	 * @return network reliability R(p)
+	 */
+	public double evaluate(double p) {
+		int m = getLinkCount();
+		double q = 1 - p;
+		// q^(m - i) for every i, from the top down
+		double[] down = new double[m + 1];
+		down[m] = 1;
+		for (int i = m - 1; i >= 0; i--) {
+			down[i] = down[i + 1] * q;
+		}
+		double result = 0;
+		double up = 1;
+		for (int i = 0; i <= m; i++) {
+			if (coefficients[i] != 0) {
+				result += coefficients[i] * up * down[i];
+			}
+			up *= p;
+		}
+		return result;
+	}
+
+	/**
+	 * @param p
+	 *            link reliabilities
+	 * @return network reliability for each of them, in the same order
+	 */
+	public double[] evaluate(double[] p) {
+		double[] result = new double[p.length];
+		for (int k = 0; k < p.length; k++) {
+			result[k] = evaluate(p[k]);
+		}
+		return result;
+	}
+}
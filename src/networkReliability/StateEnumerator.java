@@ -0,0 +1,462 @@
+package networkReliability;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exhaustive enumeration of the states of a network. A state is a long
+ * bitmask over the link indices, bit i set when link i is up, so the 2^m
+ * states are simply the numbers 0 .. 2^m - 1 and nothing is kept per state.
+ * Connectivity of a state is decided by a union-find over primitive arrays
+ * allocated once, stopping as soon as one component is left. The probability
+ * of a state is a product of table lookups, one per byte of the mask.
+ * enumerateGrayCode() visits the same states with the union-find updated
+ * incrementally and the lookups above the first byte reused, on a fork-join
+ * pool if asked to.
+ *
+ * An instance keeps a workspace for isConnected(), so it must not be shared
+ * between threads; enumerateGrayCode() gives every worker its own.
+ *
+ * @author LiP
+ *
+ */
+public class StateEnumerator {
+
+	// links per probability table
+	private static final int CHUNK = 8;
+	// the Gray code walk is cut into at most 2^MAX_BLOCK_BITS blocks of at
+	// least 2^MIN_BLOCK_STATE_BITS states, fixed by the link count alone
+	private static final int MAX_BLOCK_BITS = 12;
+	private static final int MIN_BLOCK_STATE_BITS = 16;
+	// a long holds the state, and 2^m must fit as well
+	public static final int MAX_LINKS = 62;
+
+	private final int nodes;
+	private final int links;
+	private final int[] from;
+	private final int[] to;
+	private final double[] reliability;
+	// probability of every pattern of the links of a chunk
+	private final double[][] chunkProbability;
+
+	// union-find workspace of isConnected()
+	private final int[] parent;
+
+	// results of the last enumeration
+	private double networkReliability;
+	private long upStates;
+
+	/**
+	 * @param nodes
+	 *            number of nodes, numbered from 0
+	 * @param from
+	 *            first end node of every link
+	 * @param to
+	 *            second end node of every link
+	 * @param reliability
+	 *            probability that a link is up
+	 */
+	public StateEnumerator(int nodes, int[] from, int[] to,
+			double[] reliability) {
+		if (from.length > MAX_LINKS) {
+			throw new IllegalArgumentException("at most " + MAX_LINKS
+					+ " links can be enumerated");
+		}
+		this.nodes = nodes;
+		this.links = from.length;
+		this.from = from.clone();
+		this.to = to.clone();
+		this.reliability = reliability.clone();
+
+		int chunks = (links + CHUNK - 1) / CHUNK;
+		chunkProbability = new double[chunks][];
+		for (int c = 0; c < chunks; c++) {
+			int size = Math.min(CHUNK, links - c * CHUNK);
+			double[] table = new double[1 << size];
+			for (int pattern = 0; pattern < table.length; pattern++) {
+				double p = 1;
+				for (int i = 0; i < size; i++) {
+					double r = reliability[c * CHUNK + i];
+					p *= factor((pattern >>> i & 1) == 1 ? r : 1 - r);
+				}
+				table[pattern] = p;
+			}
+			chunkProbability[c] = table;
+		}
+
+		parent = new int[nodes];
+	}
+
+	/*
+	 * getters
+	 */
+	public int getNodeCount() {
+		return nodes;
+	}
+
+	public int getLinkCount() {
+		return links;
+	}
+
+	public long getStateCount() {
+		return 1L << links;
+	}
+
+	public double getNetworkReliability() {
+		return networkReliability;
+	}
+
+	public long getUpStates() {
+		return upStates;
+	}
+
+	/**
+	 * @param state
+	 *            bitmask of the up links
+	 * @return probability that exactly these links are up
+	 */
+	public double probability(long state) {
+		double result = 1;
+		for (int c = 0; c < chunkProbability.length; c++) {
+			result *= chunkProbability[c][(int) (state >>> (c * CHUNK)) & 0xFF];
+		}
+		return result;
+	}
+
+	/**
+	 * @param state
+	 *            bitmask of the up links
+	 * @return true if the up links connect all nodes
+	 */
+	public boolean isConnected(long state) {
+		int components = nodes;
+		if (components <= 1) {
+			return true;
+		}
+		for (int v = 0; v < nodes; v++) {
+			parent[v] = v;
+		}
+		long rest = state;
+		while (rest != 0) {
+			int i = Long.numberOfTrailingZeros(rest);
+			rest &= rest - 1;
+			int a = find(parent, from[i]);
+			int b = find(parent, to[i]);
+			if (a != b) {
+				parent[a] = b;
+				if (--components == 1) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int find(int[] parent, int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * visit every state once and sum the probability of the connected ones
+	 *
+	 * @return network reliability
+	 */
+	public double enumerate() {
+		long states = getStateCount();
+		double result = 0;
+		long up = 0;
+		for (long state = 0; state < states; state++) {
+			if (isConnected(state)) {
+				result += probability(state);
+				up++;
+			}
+		}
+		networkReliability = result;
+		upStates = up;
+		return result;
+	}
+
+	/**
+	 * the same sum, visiting the states in Gray code order so that two
+	 * consecutive states differ in one link, see Walker. The walk is cut into
+	 * blocks of consecutive Gray code indices, i.e. subspaces with the high
+	 * links fixed, that run on a ForkJoinPool. Every block sums with Neumaier's
+	 * compensation, and the block sums are added up the same way in block
+	 * order, so the result is the same to the last bit for any parallelism.
+	 *
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @return network reliability
+	 */
+	public double enumerateGrayCode(int parallelism) {
+		int blocks = blockCount();
+		double[] blockSum = new double[blocks];
+		long[] blockUp = new long[blocks];
+		walk(blockSum, blockUp, null, parallelism);
+
+		double sum = 0;
+		double compensation = 0;
+		long up = 0;
+		for (int b = 0; b < blocks; b++) {
+			double t = sum + blockSum[b];
+			compensation += Math.abs(sum) >= Math.abs(blockSum[b]) ? (sum - t)
+					+ blockSum[b] : (blockSum[b] - t) + sum;
+			sum = t;
+			up += blockUp[b];
+		}
+		networkReliability = sum + compensation;
+		upStates = up;
+		return networkReliability;
+	}
+
+	/**
+	 * count the connected states by number of up links, the coefficients of
+	 * the reliability polynomial. The same Gray code walk without the
+	 * probabilities, the up links of a state being one bit count.
+	 *
+	 * @param parallelism
+	 *            number of worker threads, 1 means sequential
+	 * @return entry i is the number of connected states with i links up
+	 */
+	public long[] countConnectedStates(int parallelism) {
+		long[] count = new long[links + 1];
+		walk(null, null, count, parallelism);
+		long up = 0;
+		for (long c : count) {
+			up += c;
+		}
+		upStates = up;
+		return count;
+	}
+
+	private int blockCount() {
+		return 1 << Math.max(0,
+				Math.min(MAX_BLOCK_BITS, links - MIN_BLOCK_STATE_BITS));
+	}
+
+	/*
+	 * walk all blocks, sequentially in one leaf or on a pool, see BlockTask
+	 */
+	private void walk(double[] blockSum, long[] blockUp, long[] count,
+			int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be a positive number");
+		}
+		int blocks = blockCount();
+		if (parallelism == 1) {
+			new BlockTask(blockSum, blockUp, count, 0, blocks, blocks)
+					.compute();
+		} else {
+			BlockTask task = new BlockTask(blockSum, blockUp, count, 0,
+					blocks, 1);
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(task);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/*
+	 * a factor at or below 0, e.g. 1 - r for an r rounded just above 1,
+	 * counts as 0
+	 */
+	private static double factor(double factor) {
+		return factor > 0 ? factor : 0;
+	}
+
+	/*
+	 * Gray code walk over a range of indices with its own workspace. The
+	 * probability of a state is one lookup in the table of the first CHUNK
+	 * links times the product of the other lookups, which is recomputed
+	 * exactly whenever one of their links flips, every 2^CHUNK states, so no
+	 * rounding error builds up along the walk. The union-find is kept for the
+	 * current state: a link going up is a union, a link going down leaves it
+	 * valid unless the link is one of the unions of its spanning forest, and
+	 * only then is it rebuilt. The rebuild takes the links from the highest
+	 * index down, the ones the walk flips least often, so that the forest
+	 * rarely holds a link about to go down.
+	 */
+	private class Walker {
+		// false: count the connected states by up links, no probabilities
+		private final boolean weighted;
+		private final int[] parent = new int[nodes];
+		// links whose union merged two components, so the union-find holds
+		// as long as none of them goes down
+		private long forest;
+		private int components;
+		// probability table of the first chunk, and the product of the
+		// lookups of the other chunks for the current state
+		private final double[] lowProbability;
+		private double highProbability;
+
+		// Neumaier sum of the connected states and their count
+		private double sum;
+		private double compensation;
+		private long up;
+		// connected states by up links, when not weighted
+		private final long[] count;
+
+		Walker(boolean weighted) {
+			this.weighted = weighted;
+			count = weighted ? null : new long[links + 1];
+			lowProbability = chunkProbability.length == 0 ? new double[] { 1 }
+					: chunkProbability[0];
+		}
+
+		/*
+		 * states of Gray code indices [lo, hi)
+		 */
+		void walk(long lo, long hi) {
+			sum = 0;
+			compensation = 0;
+			up = 0;
+			long state = lo ^ (lo >>> 1);
+			rebuild(state);
+			if (weighted) {
+				resync(state);
+			}
+			visit(state);
+			for (long k = lo + 1; k < hi; k++) {
+				int i = Long.numberOfTrailingZeros(k);
+				state ^= 1L << i;
+				if ((state >>> i & 1) == 1) {
+					linkUp(i);
+				} else {
+					linkDown(state, i);
+				}
+				if (weighted && i >= CHUNK) {
+					resync(state);
+				}
+				visit(state);
+			}
+		}
+
+		private void visit(long state) {
+			if (components > 1) {
+				return;
+			}
+			up++;
+			if (!weighted) {
+				count[Long.bitCount(state)]++;
+				return;
+			}
+			double x = highProbability * lowProbability[(int) state & 0xFF];
+			double t = sum + x;
+			compensation += Math.abs(sum) >= x ? (sum - t) + x : (x - t) + sum;
+			sum = t;
+		}
+
+		private void linkUp(int i) {
+			if (components > 1) {
+				int a = find(parent, from[i]);
+				int b = find(parent, to[i]);
+				if (a != b) {
+					parent[a] = b;
+					components--;
+					forest |= 1L << i;
+				}
+			}
+		}
+
+		private void linkDown(long state, int i) {
+			if ((forest >>> i & 1) == 1) {
+				rebuild(state);
+			}
+		}
+
+		/*
+		 * product of the lookups of all chunks but the first
+		 */
+		private void resync(long state) {
+			highProbability = 1;
+			for (int c = 1; c < chunkProbability.length; c++) {
+				highProbability *= chunkProbability[c][(int) (state >>> (c
+						* CHUNK)) & 0xFF];
+			}
+		}
+
+		/*
+		 * union-find and spanning forest of a state from scratch
+		 */
+		private void rebuild(long state) {
+			for (int v = 0; v < nodes; v++) {
+				parent[v] = v;
+			}
+			components = nodes;
+			forest = 0;
+			long rest = state;
+			while (rest != 0 && components > 1) {
+				int i = 63 - Long.numberOfLeadingZeros(rest);
+				rest ^= 1L << i;
+				int a = find(parent, from[i]);
+				int b = find(parent, to[i]);
+				if (a != b) {
+					parent[a] = b;
+					components--;
+					forest |= 1L << i;
+				}
+			}
+		}
+	}
+
+	/*
+	 * walks blocks [lo, hi), every leaf with its own workspace; either sums
+	 * the probabilities per block or adds the counts by up links into count
+	 */
+	@SuppressWarnings("serial")
+	private class BlockTask extends RecursiveAction {
+		private final double[] blockSum;
+		private final long[] blockUp;
+		private final long[] count;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		BlockTask(double[] blockSum, long[] blockUp, long[] count, int lo,
+				int hi, int grain) {
+			this.blockSum = blockSum;
+			this.blockUp = blockUp;
+			this.count = count;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo > grain) {
+				int mid = lo + (hi - lo) / 2;
+				invokeAll(new BlockTask(blockSum, blockUp, count, lo, mid,
+						grain), new BlockTask(blockSum, blockUp, count, mid, hi,
+						grain));
+				return;
+			}
+			int blockStateBits = links
+					- Integer.numberOfTrailingZeros(blockCount());
+			Walker walker = new Walker(count == null);
+			for (int b = lo; b < hi; b++) {
+				walker.walk((long) b << blockStateBits,
+						(long) (b + 1) << blockStateBits);
+				if (count == null) {
+					blockSum[b] = walker.sum + walker.compensation;
+					blockUp[b] = walker.up;
+				}
+			}
+			if (count != null) {
+				// integer counts, the order of the merges does not matter
+				synchronized (count) {
+					for (int i = 0; i <= links; i++) {
+						count[i] += walker.count[i];
+					}
+				}
+			}
+		}
+	}
+}